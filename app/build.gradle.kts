@@ -1,7 +1,9 @@
+import com.android.build.api.variant.BuildConfigField
 import com.android.build.gradle.internal.api.ApkVariantOutputImpl
 
 plugins {
     alias(libs.plugins.android.application)
+    alias(libs.plugins.baselineprofile)
 }
 
 android {
@@ -15,6 +17,8 @@ android {
         targetSdk = 32
         versionCode = 5
         versionName = "1.4"
+
+        buildConfigField("boolean", "TRACING", "false")
     }
 
     buildTypes {
@@ -27,6 +31,8 @@ android {
             signingConfig = signingConfigs.getByName("debug")
         }
         create("beta") {
+            // Emits the trace sections of TraceUtil
+            buildConfigField("boolean", "TRACING", "true")
             isMinifyEnabled = true
             proguardFiles(
                 getDefaultProguardFile("proguard-android-optimize.txt"),
@@ -36,6 +42,10 @@ android {
         }
     }
 
+    buildFeatures {
+        buildConfig = true
+    }
+
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
@@ -55,9 +65,28 @@ android {
     }
 }
 
+androidComponents {
+    onVariants { variant ->
+        // The benchmark module measures tile binds through TraceUtil sections
+        if (variant.buildType?.startsWith("benchmark") == true) {
+            variant.buildConfigFields.put(
+                "TRACING", BuildConfigField("boolean", "true", null)
+            )
+        }
+    }
+}
+
+baselineProfile {
+    // Generated profiles land in src/main, shared by release and beta
+    mergeIntoMain = true
+}
+
 dependencies {
     implementation(libs.appcompat)
     implementation(libs.activity)
     implementation(libs.material)
     implementation(libs.constraintlayout)
+    implementation(libs.profileinstaller)
+    annotationProcessor(project(":processor"))
+    baselineProfile(project(":benchmark"))
 }
\ No newline at end of file
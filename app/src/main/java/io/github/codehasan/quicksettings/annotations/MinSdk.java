@@ -1,9 +1,16 @@
 package io.github.codehasan.quicksettings.annotations;
 
+import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 
-@Retention(RetentionPolicy.RUNTIME)
+/**
+ * The lowest API level a {@link TileSpec} works on without root. Read at build time into
+ * {@code TileRegistry}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
 public @interface MinSdk {
     int value();
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package io.github.codehasan.quicksettings.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Metadata of a tile service, collected at build time into {@code TileRegistry}.
+ * <p>
+ * Kept in class files, as an incremental build hands unchanged tiles to the processor
+ * as classes. D8 does not carry it into the dex.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface TileSpec {
+    /**
+     * Opened on a long press of the tile, the app details when neither this nor
+     * {@link #settingsComponent()} is set.
+     */
+    String settingsAction() default "";
+
+    /**
+     * Flattened component opened on a long press, takes precedence over
+     * {@link #settingsAction()}.
+     */
+    String settingsComponent() default "";
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.services;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+
+/**
+ * In-process path from the accessibility tiles to the connected
+ * {@link GlobalActionService}, without an intent round trip through system_server.
+ * <p>
+ * An action sent while the service is not connected, e.g. while the system rebinds it
+ * after the process was killed, waits up to {@link #CONNECT_TIMEOUT_MS} for it. Tiles
+ * call {@link #checkAlive()} when the shade opens, so a service that was unbound is
+ * noticed before the next tap.
+ */
+public class GlobalActionChannel {
+    public static final String TAG = "GlobalActionChannel";
+    public static final int RESULT_PERFORMED = 0;
+    // The service is connected, but the system did not accept the action
+    public static final int RESULT_REFUSED = 1;
+    // No service connected within CONNECT_TIMEOUT_MS
+    public static final int RESULT_NOT_CONNECTED = 2;
+
+    private static final long CONNECT_TIMEOUT_MS = 2_000;
+
+    private static GlobalActionChannel instance;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ArrayDeque<PendingAction> queue = new ArrayDeque<>();
+    private GlobalActionService service;
+    private long lastHeartbeatMillis;
+
+    public interface Callback {
+        /**
+         * Called on the main thread.
+         *
+         * @param result one of the RESULT_ constants
+         */
+        void onComplete(int result);
+    }
+
+    private GlobalActionChannel() {
+    }
+
+    @NonNull
+    public static synchronized GlobalActionChannel getInstance() {
+        if (instance == null) {
+            instance = new GlobalActionChannel();
+        }
+        return instance;
+    }
+
+    @MainThread
+    public void send(@NonNull String action, @NonNull Callback callback) {
+        if (service != null) {
+            callback.onComplete(perform(service, action));
+            return;
+        }
+
+        PendingAction pending = new PendingAction(action, callback);
+        queue.add(pending);
+        handler.postDelayed(pending, CONNECT_TIMEOUT_MS);
+    }
+
+    /**
+     * Asks the system for the service's info, which only succeeds while it is bound. A
+     * service that no longer is gets detached.
+     *
+     * @return whether the service is connected
+     */
+    @MainThread
+    public boolean checkAlive() {
+        if (service == null) return false;
+
+        if (service.getServiceInfo() == null) {
+            Log.w(TAG, "GlobalActionService lost its connection");
+            service = null;
+            return false;
+        }
+        lastHeartbeatMillis = SystemClock.elapsedRealtime();
+        return true;
+    }
+
+    /**
+     * @return elapsedRealtime of the last successful {@link #checkAlive()}, 0 if none
+     */
+    public long getLastHeartbeatMillis() {
+        return lastHeartbeatMillis;
+    }
+
+    @MainThread
+    void attach(@NonNull GlobalActionService service) {
+        this.service = service;
+        lastHeartbeatMillis = SystemClock.elapsedRealtime();
+
+        while (!queue.isEmpty()) {
+            PendingAction pending = queue.poll();
+            handler.removeCallbacks(pending);
+            pending.callback.onComplete(perform(service, pending.action));
+        }
+    }
+
+    @MainThread
+    void detach(@NonNull GlobalActionService service) {
+        if (this.service == service) this.service = null;
+    }
+
+    private static int perform(GlobalActionService service, String action) {
+        if (service.perform(action)) return RESULT_PERFORMED;
+
+        Log.w(TAG, "The system refused " + action);
+        return RESULT_REFUSED;
+    }
+
+    private class PendingAction implements Runnable {
+        final String action;
+        final Callback callback;
+
+        PendingAction(String action, Callback callback) {
+            this.action = action;
+            this.callback = callback;
+        }
+
+        /**
+         * The connect timeout.
+         */
+        @Override
+        public void run() {
+            if (queue.remove(this)) {
+                Log.w(TAG, "GlobalActionService did not connect for " + action);
+                callback.onComplete(RESULT_NOT_CONNECTED);
+            }
+        }
+    }
+}
@@ -10,52 +10,156 @@
 
 package io.github.codehasan.quicksettings.services;
 
-import static io.github.codehasan.quicksettings.util.NullSafety.isNullOrEmpty;
-
 import android.accessibilityservice.AccessibilityService;
 import android.content.Intent;
+import android.os.Build;
+import android.os.Debug;
 import android.view.accessibility.AccessibilityEvent;
 
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import io.github.codehasan.quicksettings.state.ScreenshotSettings;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
+import io.github.codehasan.quicksettings.util.TraceUtil;
+
+/**
+ * Performs the global actions of the accessibility tiles.
+ * <p>
+ * The service subscribes to no accessibility events, so the system does not marshal
+ * every window and content change of the device into this process.
+ * <p>
+ * Tiles reach the connected instance through {@link GlobalActionChannel}.
+ * <p>
+ * On API 30+ screenshots can be captured by the service itself, see
+ * {@link ScreenshotCapturer}, in the format picked in {@link ScreenshotSettings}.
+ */
 public class GlobalActionService extends AccessibilityService {
     public static final String ACTION_LOCK_SCREEN = "lock-screen";
     public static final String ACTION_POWER_DIALOG = "power-dialog";
     public static final String ACTION_SCREENSHOT = "screenshot";
 
+    private static final EventStats eventStats = new EventStats();
+
+    private ScreenshotCapturer screenshotCapturer;
+
+    @NonNull
+    public static EventStats getEventStats() {
+        return eventStats;
+    }
+
+    @Override
+    protected void onServiceConnected() {
+        super.onServiceConnected();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            screenshotCapturer = new ScreenshotCapturer(this);
+        }
+        GlobalActionChannel.getInstance().attach(this);
+    }
+
+    @Override
+    public boolean onUnbind(Intent intent) {
+        disconnect();
+        return super.onUnbind(intent);
+    }
+
+    @Override
+    public void onDestroy() {
+        disconnect();
+        super.onDestroy();
+    }
+
     @Override
     public void onAccessibilityEvent(AccessibilityEvent event) {
+        long startCpuNanos = Debug.threadCpuTimeNanos();
+        // Nothing is subscribed, count whatever the system delivers anyway
+        eventStats.onEvent(Debug.threadCpuTimeNanos() - startCpuNanos);
     }
 
     @Override
     public void onInterrupt() {
     }
 
-    @Override
-    public int onStartCommand(Intent intent, int flags, int startId) {
-        if (intent != null && !isNullOrEmpty(intent.getAction())) {
-            switch (intent.getAction()) {
-                case ACTION_LOCK_SCREEN:
-                    lockScreen();
-                    break;
-                case ACTION_POWER_DIALOG:
-                    showPowerDialog();
-                    break;
-                case ACTION_SCREENSHOT:
-                    takeScreenShot();
-                    break;
-            }
+    private void disconnect() {
+        GlobalActionChannel.getInstance().detach(this);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && screenshotCapturer != null) {
+            screenshotCapturer.close();
+            screenshotCapturer = null;
+        }
+    }
+
+    /**
+     * Runs one of the ACTION_ constants, called by {@link GlobalActionChannel}.
+     *
+     * @return whether the system accepted the action
+     */
+    @MainThread
+    boolean perform(@NonNull String action) {
+        boolean performed;
+        TraceUtil.beginSection("GlobalActionService", action);
+        try {
+            performed = dispatch(action);
+        } finally {
+            TraceUtil.endSection();
         }
-        return super.onStartCommand(intent, flags, startId);
+        if (performed) LatencyTracker.getInstance().endPending(action);
+        return performed;
+    }
+
+    private boolean dispatch(String action) {
+        switch (action) {
+            case ACTION_LOCK_SCREEN:
+                return lockScreen();
+            case ACTION_POWER_DIALOG:
+                return showPowerDialog();
+            case ACTION_SCREENSHOT:
+                return takeScreenShot();
+            default:
+                return false;
+        }
+    }
+
+    public boolean lockScreen() {
+        return performGlobalAction(GLOBAL_ACTION_LOCK_SCREEN);
     }
 
-    public void lockScreen() {
-        performGlobalAction(GLOBAL_ACTION_LOCK_SCREEN);
+    public boolean takeScreenShot() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && screenshotCapturer != null) {
+            ScreenshotSettings.Format format = ScreenshotSettings.getInstance(this).getFormat();
+            if (format != ScreenshotSettings.Format.SYSTEM) {
+                // The tap is complete once the file is written, not when it is queued
+                LatencyTracker.Span span =
+                        LatencyTracker.getInstance().takePending(ACTION_SCREENSHOT);
+                return screenshotCapturer.capture(format, span);
+            }
+        }
+        return performGlobalAction(GLOBAL_ACTION_TAKE_SCREENSHOT);
     }
 
-    public void takeScreenShot() {
-        performGlobalAction(GLOBAL_ACTION_TAKE_SCREENSHOT);
+    public boolean showPowerDialog() {
+        return performGlobalAction(GLOBAL_ACTION_POWER_DIALOG);
     }
 
-    public void showPowerDialog() {
-        performGlobalAction(GLOBAL_ACTION_POWER_DIALOG);
+    /**
+     * How many accessibility events reached this process since it started and what
+     * handling them cost, read by the diagnostics. Should stay at zero.
+     */
+    public static class EventStats {
+        private long eventCount;
+        private long cpuNanos;
+
+        private synchronized void onEvent(long eventCpuNanos) {
+            eventCount++;
+            // threadCpuTimeNanos() returns -1 where it is not supported
+            if (eventCpuNanos > 0) cpuNanos += eventCpuNanos;
+        }
+
+        public synchronized long getEventCount() {
+            return eventCount;
+        }
+
+        public synchronized long getCpuMillis() {
+            return cpuNanos / 1_000_000;
+        }
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.services;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+
+import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.util.ScreenRecorder;
+import io.github.codehasan.quicksettings.util.TaskScheduler;
+
+/**
+ * Keeps the process in the foreground while {@link ScreenRecorder} is not idle, so it is
+ * not killed before the last segment is published. Its notification stops the recording.
+ */
+public class RecordingService extends Service implements ScreenRecorder.Listener {
+    private static final String TAG = "RecordingService";
+    private static final String CHANNEL_ID = "screen_record";
+    private static final int NOTIFICATION_ID = 1;
+    private static final String ACTION_STOP =
+            "io.github.codehasan.quicksettings.action.STOP_RECORDING";
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final TaskScheduler.Scope scope = TaskScheduler.getInstance().newScope(TAG);
+    private ScreenRecorder recorder;
+
+    /**
+     * Called once a recording has started. Android 12+ may refuse the start while the app
+     * is in the background, the recording then runs without it.
+     */
+    public static void start(@NonNull Context context) {
+        Intent intent = new Intent(context, RecordingService.class);
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                context.startForegroundService(intent);
+            } else {
+                context.startService(intent);
+            }
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "Not allowed to start in the foreground", e);
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        recorder = ScreenRecorder.getInstance(this);
+        recorder.addListener(this);
+    }
+
+    @Override
+    public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
+        startForeground(NOTIFICATION_ID, buildNotification());
+
+        if (intent != null && ACTION_STOP.equals(intent.getAction())) {
+            scope.execute(recorder::stop);
+        } else if (recorder.getStatus() == ScreenRecorder.Status.IDLE) {
+            // Finished before the service came up
+            stopSelf();
+        }
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        recorder.removeListener(this);
+        handler.removeCallbacksAndMessages(null);
+        scope.close();
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public void onRecordingChanged() {
+        handler.post(() -> {
+            if (recorder.getStatus() == ScreenRecorder.Status.IDLE) stopSelf();
+        });
+    }
+
+    private Notification buildNotification() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                    getString(R.string.screen_record), NotificationManager.IMPORTANCE_LOW);
+            getSystemService(NotificationManager.class).createNotificationChannel(channel);
+        }
+
+        Intent stop = new Intent(this, RecordingService.class).setAction(ACTION_STOP);
+        PendingIntent stopIntent = PendingIntent.getService(this, 0, stop,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_screen_record)
+                .setContentTitle(getString(R.string.screen_record))
+                .setContentText(getString(R.string.screen_record_notification))
+                .setOngoing(true)
+                .addAction(0, getString(R.string.stop), stopIntent)
+                .build();
+    }
+}
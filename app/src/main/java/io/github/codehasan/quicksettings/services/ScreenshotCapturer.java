@@ -0,0 +1,212 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.services;
+
+import android.accessibilityservice.AccessibilityService;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.hardware.HardwareBuffer;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.MediaStore;
+import android.util.Log;
+import android.view.Display;
+import android.widget.Toast;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.state.ScreenshotSettings;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
+import io.github.codehasan.quicksettings.util.TaskScheduler;
+import io.github.codehasan.quicksettings.util.TraceUtil;
+
+/**
+ * Captures the screen through {@link AccessibilityService#takeScreenshot} and saves it
+ * to Pictures/Screenshots without going through the system screenshot UI.
+ * <p>
+ * The captured {@link HardwareBuffer} is wrapped, not copied, and compressed straight
+ * into the MediaStore output stream on the background lane of a serial encoder scope, so
+ * queued tile work is always picked first. Captures do not wait for the previous encode,
+ * so a burst of taps keeps capturing while earlier shots are still being written, up to
+ * {@link #MAX_IN_FLIGHT} buffers.
+ * <p>
+ * A buffer the system has delivered is always encoded and closed, even when the service
+ * disconnects in the meantime, so the encoder scope is never closed.
+ */
+@RequiresApi(api = Build.VERSION_CODES.R)
+class ScreenshotCapturer {
+    private static final String TAG = "ScreenshotCapturer";
+    // The system rejects takeScreenshot() calls closer together than this
+    private static final long MIN_INTERVAL_MS = 333;
+    // Each pending buffer holds a full screen of pixels
+    private static final int MAX_IN_FLIGHT = 4;
+    private static final String RELATIVE_PATH = Environment.DIRECTORY_PICTURES + "/Screenshots";
+
+    private final AccessibilityService service;
+    // Outlives the service for encodes that finish after it disconnected
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final TaskScheduler.Scope encoder = TaskScheduler.getInstance().newScope(TAG);
+    private final SimpleDateFormat nameFormat =
+            new SimpleDateFormat("yyyyMMdd-HHmmss-SSS", Locale.US);
+
+    // Main thread only
+    private int inFlight;
+    private long nextRequestMillis;
+    private boolean closed;
+
+    ScreenshotCapturer(@NonNull AccessibilityService service) {
+        this.service = service;
+        this.context = service.getApplicationContext();
+    }
+
+    /**
+     * Queues a capture, spaced out from the previous one as far as the system requires.
+     *
+     * @param span the tap, ended once the file is written and dropped on failure
+     * @return false if too many captures are still being encoded
+     */
+    @MainThread
+    boolean capture(@NonNull ScreenshotSettings.Format format,
+                    @Nullable LatencyTracker.Span span) {
+        if (closed || inFlight >= MAX_IN_FLIGHT) {
+            Log.w(TAG, "Dropping capture, " + inFlight + " still in flight");
+            if (span != null) span.cancel();
+            return false;
+        }
+        inFlight++;
+
+        long now = SystemClock.uptimeMillis();
+        long at = Math.max(now, nextRequestMillis);
+        nextRequestMillis = at + MIN_INTERVAL_MS;
+        handler.postAtTime(() -> request(format, span), at);
+        return true;
+    }
+
+    /**
+     * Skips captures that were not requested yet, the service is going away. Captures
+     * already requested are still saved.
+     */
+    @MainThread
+    void close() {
+        closed = true;
+    }
+
+    @MainThread
+    private void request(ScreenshotSettings.Format format, @Nullable LatencyTracker.Span span) {
+        if (closed) {
+            inFlight--;
+            if (span != null) span.cancel();
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        // The result is delivered on the encoder scope, so it is encoded right there
+        service.takeScreenshot(Display.DEFAULT_DISPLAY, encoder.background(),
+                new AccessibilityService.TakeScreenshotCallback() {
+                    @Override
+                    public void onSuccess(@NonNull AccessibilityService.ScreenshotResult result) {
+                        LatencyTracker.getInstance().record("Screenshot / capture",
+                                (System.nanoTime() - startNanos) / 1_000_000);
+                        boolean saved = save(result, format);
+                        handler.post(() -> onFinished(saved, span));
+                    }
+
+                    @Override
+                    public void onFailure(int errorCode) {
+                        Log.w(TAG, "takeScreenshot failed with " + errorCode);
+                        handler.post(() -> onFinished(false, span));
+                    }
+                });
+    }
+
+    @MainThread
+    private void onFinished(boolean saved, @Nullable LatencyTracker.Span span) {
+        inFlight--;
+        if (saved) {
+            if (span != null) span.end();
+        } else {
+            if (span != null) span.cancel();
+            Toast.makeText(context, R.string.screenshot_failed, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    @WorkerThread
+    private boolean save(AccessibilityService.ScreenshotResult result,
+                         ScreenshotSettings.Format format) {
+        long startNanos = System.nanoTime();
+        HardwareBuffer buffer = result.getHardwareBuffer();
+        TraceUtil.beginSection(TAG, "encode-" + format.extension);
+        try {
+            Bitmap bitmap = Bitmap.wrapHardwareBuffer(buffer, result.getColorSpace());
+            if (bitmap == null) return false;
+            try {
+                return write(bitmap, format);
+            } finally {
+                bitmap.recycle();
+            }
+        } finally {
+            TraceUtil.endSection();
+            buffer.close();
+            LatencyTracker.getInstance().record("Screenshot / encode-" + format.extension,
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    private boolean write(Bitmap bitmap, ScreenshotSettings.Format format) {
+        ContentResolver resolver = context.getContentResolver();
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.Images.Media.DISPLAY_NAME,
+                "Screenshot_" + nameFormat.format(new Date()) + "." + format.extension);
+        values.put(MediaStore.Images.Media.MIME_TYPE, format.mimeType);
+        values.put(MediaStore.Images.Media.RELATIVE_PATH, RELATIVE_PATH);
+        // Hidden from galleries until the file is complete
+        values.put(MediaStore.Images.Media.IS_PENDING, 1);
+
+        Uri uri = resolver.insert(
+                MediaStore.Images.Media.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY), values);
+        if (uri == null) return false;
+
+        boolean written = false;
+        try (OutputStream out = resolver.openOutputStream(uri)) {
+            written = out != null
+                    && bitmap.compress(format.getCompressFormat(), format.quality, out);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write " + uri, e);
+        }
+
+        if (!written) {
+            resolver.delete(uri, null, null);
+            return false;
+        }
+        values.clear();
+        values.put(MediaStore.Images.Media.IS_PENDING, 0);
+        resolver.update(uri, values, null, null);
+        return true;
+    }
+}
@@ -10,22 +10,16 @@
 
 package io.github.codehasan.quicksettings.services.common;
 
-import static android.accessibilityservice.AccessibilityServiceInfo.FEEDBACK_ALL_MASK;
-
-import android.accessibilityservice.AccessibilityServiceInfo;
 import android.app.AlertDialog;
-import android.app.BackgroundServiceStartNotAllowedException;
 import android.content.ActivityNotFoundException;
 import android.content.Intent;
-import android.content.pm.ServiceInfo;
 import android.provider.Settings;
-import android.view.accessibility.AccessibilityManager;
-
-import java.util.List;
 
 import io.github.codehasan.quicksettings.R;
-import io.github.codehasan.quicksettings.services.GlobalActionService;
+import io.github.codehasan.quicksettings.services.GlobalActionChannel;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
 import io.github.codehasan.quicksettings.util.TileServiceUtil;
+import io.github.codehasan.quicksettings.util.TraceUtil;
 
 public abstract class AccessibilityTile extends StatelessTile {
 
@@ -42,32 +36,41 @@ public abstract class AccessibilityTile extends StatelessTile {
             return;
         }
 
+        trackLatency(startLatencySpan(LatencyTracker.PATH_ACCESSIBILITY));
+
+        beginTraceSection("startGlobalAction");
         try {
-            Intent lockScreenIntent = new Intent(this, GlobalActionService.class)
-                    .setAction(getAction());
-            startService(lockScreenIntent);
-        } catch (BackgroundServiceStartNotAllowedException e) {
-            // Service is killed by OEM
-            showAccessibilityActionDialog(true);
+            GlobalActionChannel.getInstance().send(getAction(), result -> {
+                if (result == GlobalActionChannel.RESULT_PERFORMED) return;
+                // Nothing will end the parked span, drop it instead of leaking it
+                LatencyTracker.Span span = LatencyTracker.getInstance().takePending(getAction());
+                if (span != null) span.cancel();
+                // Enabled in settings but never connected, e.g. killed by the OEM
+                if (result == GlobalActionChannel.RESULT_NOT_CONNECTED) {
+                    showAccessibilityActionDialog(true);
+                }
+            });
+        } finally {
+            TraceUtil.endSection();
         }
     }
 
-    public boolean isAccessibilityServiceEnabled() {
-        AccessibilityManager manager = (AccessibilityManager) getSystemService(ACCESSIBILITY_SERVICE);
-
-        if (manager != null) {
-            List<AccessibilityServiceInfo> services =
-                    manager.getEnabledAccessibilityServiceList(FEEDBACK_ALL_MASK);
+    @Override
+    public void onStartListening() {
+        super.onStartListening();
+        // Heartbeat, a service that was unbound is detached before the tap
+        GlobalActionChannel.getInstance().checkAlive();
+    }
 
-            for (AccessibilityServiceInfo enabledService : services) {
-                ServiceInfo info = enabledService.getResolveInfo().serviceInfo;
+    /**
+     * By default the span ends once GlobalActionService has performed the action.
+     */
+    public void trackLatency(LatencyTracker.Span span) {
+        LatencyTracker.getInstance().putPending(getAction(), span);
+    }
 
-                if (info.packageName.equals(getPackageName()) &&
-                        info.name.equals(GlobalActionService.class.getName()))
-                    return true;
-            }
-        }
-        return false;
+    public boolean isAccessibilityServiceEnabled() {
+        return capabilities.isAccessibilityServiceEnabled();
     }
 
     private void showAccessibilityActionDialog(boolean killed) {
@@ -1,7 +1,5 @@
 package io.github.codehasan.quicksettings.services.common;
 
-import android.Manifest;
-import android.content.pm.PackageManager;
 import android.os.Handler;
 import android.os.Looper;
 import android.provider.Settings;
@@ -9,16 +7,83 @@ import android.service.quicksettings.TileService;
 
 import androidx.annotation.Nullable;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import io.github.codehasan.quicksettings.state.CapabilityRegistry;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
+import io.github.codehasan.quicksettings.util.TaskScheduler;
+import io.github.codehasan.quicksettings.util.TraceUtil;
 
 public abstract class BaseTileService extends TileService {
-    public final ExecutorService executor = Executors.newSingleThreadExecutor();
+    public final TaskScheduler.Scope executor =
+            TaskScheduler.getInstance().newScope(getClass().getSimpleName());
     public final Handler handler = new Handler(Looper.getMainLooper());
+    public CapabilityRegistry capabilities;
+    private boolean bindSectionOpen;
+
+    @Override
+    public void onCreate() {
+        // Measured by the benchmark module from bind to the first tile update
+        TraceUtil.beginAsyncSection(getClass().getSimpleName(), "bind",
+                System.identityHashCode(this));
+        bindSectionOpen = true;
+
+        beginTraceSection("onCreate");
+        try {
+            super.onCreate();
+            capabilities = CapabilityRegistry.getInstance(this);
+        } finally {
+            TraceUtil.endSection();
+        }
+    }
+
+    @Override
+    public void onStartListening() {
+        beginTraceSection("onStartListening");
+        try {
+            super.onStartListening();
+        } finally {
+            TraceUtil.endSection();
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        // Only refreshes are dropped, a tap still running reaches its effect
+        executor.closeBackground();
+        endBindTraceSection();
+    }
+
+    /**
+     * Closes the bind section opened in {@link #onCreate()} once the tile shows its
+     * first state. Only the first call counts, must be called on the main thread.
+     */
+    public void endBindTraceSection() {
+        if (!bindSectionOpen) return;
+        bindSectionOpen = false;
+        TraceUtil.endAsyncSection(getClass().getSimpleName(), "bind",
+                System.identityHashCode(this));
+    }
+
+    /**
+     * Opens a trace section named after this tile, close it with
+     * {@link TraceUtil#endSection()}.
+     */
+    public void beginTraceSection(String name) {
+        TraceUtil.beginSection(getClass().getSimpleName(), name);
+    }
+
+    /**
+     * Starts measuring a tap of this tile, the caller ends the span once the effect of
+     * the tap is observable.
+     *
+     * @param path one of the {@code LatencyTracker.PATH_*} constants
+     */
+    public LatencyTracker.Span startLatencySpan(String path) {
+        return LatencyTracker.getInstance().start(getClass().getSimpleName(), path);
+    }
 
     public boolean hasSecureSettingsPermission() {
-        return checkSelfPermission(Manifest.permission.WRITE_SECURE_SETTINGS)
-                == PackageManager.PERMISSION_GRANTED;
+        return capabilities.hasSecureSettings();
     }
 
     public boolean writeSecureSetting(String key, String value) {
@@ -10,11 +10,40 @@
 
 package io.github.codehasan.quicksettings.services.common;
 
+import android.os.Build;
+import android.service.quicksettings.Tile;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.github.codehasan.quicksettings.state.TileSnapshotStore;
+import io.github.codehasan.quicksettings.util.TraceUtil;
+
 public abstract class StatefulTile extends BaseTileService {
+    // Invalidations within one frame collapse into a single refresh
+    private static final long REFRESH_WINDOW_MS = 16;
+
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final Runnable refreshRunnable = this::refreshTile;
+    private TileSnapshotStore snapshotStore;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        snapshotStore = TileSnapshotStore.getInstance(this);
+    }
 
     @Override
     public void onStartListening() {
         super.onStartListening();
+        beginTraceSection("renderSnapshot");
+        try {
+            renderSnapshot();
+        } finally {
+            TraceUtil.endSection();
+        }
         updateTile();
     }
 
@@ -24,5 +53,84 @@ public abstract class StatefulTile extends BaseTileService {
         updateTile();
     }
 
-    public abstract void updateTile();
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(refreshRunnable);
+    }
+
+    /**
+     * Schedules a refresh of the tile. Can be called from any thread and as often as
+     * needed, bursts are coalesced into one {@link #computeTileState()} call and at most
+     * one {@link Tile#updateTile()}.
+     */
+    public final void updateTile() {
+        if (refreshPending.compareAndSet(false, true)) {
+            handler.postDelayed(refreshRunnable, REFRESH_WINDOW_MS);
+        }
+    }
+
+    /**
+     * Computes the current state of the tile. Called on a background thread, one call
+     * at a time.
+     */
+    @NonNull
+    public abstract TileState computeTileState();
+
+    /**
+     * Shows the last known state right away, the real one follows from updateTile().
+     */
+    private void renderSnapshot() {
+        Tile tile = getQsTile();
+        if (tile == null) return;
+
+        TileState snapshot = snapshotStore.get(getClass().getName());
+        if (snapshot != null) {
+            applyTileState(tile, snapshot);
+        }
+    }
+
+    private void refreshTile() {
+        refreshPending.set(false);
+
+        executor.background().execute(() -> {
+            TileState state;
+            beginTraceSection("computeTileState");
+            try {
+                state = computeTileState();
+            } finally {
+                TraceUtil.endSection();
+            }
+
+            handler.post(() -> {
+                Tile tile = getQsTile();
+                if (tile == null) return;
+
+                beginTraceSection("applyTileState");
+                try {
+                    applyTileState(tile, state);
+                    snapshotStore.put(getClass().getName(), state);
+                } finally {
+                    TraceUtil.endSection();
+                }
+                endBindTraceSection();
+            });
+        });
+    }
+
+    private void applyTileState(@NonNull Tile tile, @NonNull TileState state) {
+        boolean subtitleSupported = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+        boolean stateChanged = tile.getState() != state.state;
+        boolean subtitleChanged = subtitleSupported &&
+                !TextUtils.equals(tile.getSubtitle(), state.subtitle);
+
+        // Skip the binder call to SystemUI when nothing visible changed
+        if (!stateChanged && !subtitleChanged) return;
+
+        tile.setState(state.state);
+        if (subtitleSupported) {
+            tile.setSubtitle(state.subtitle);
+        }
+        tile.updateTile();
+    }
 }
@@ -12,13 +12,27 @@ package io.github.codehasan.quicksettings.services.common;
 
 import android.service.quicksettings.Tile;
 
+import io.github.codehasan.quicksettings.util.TraceUtil;
+
 public abstract class StatelessTile extends BaseTileService {
 
+    @Override
+    public void onStartListening() {
+        super.onStartListening();
+        // Nothing to compute, the tile is ready as soon as it listens
+        endBindTraceSection();
+    }
+
     @Override
     public void onTileAdded() {
         super.onTileAdded();
-        Tile tile = getQsTile();
-        tile.setState(Tile.STATE_INACTIVE);
-        tile.updateTile();
+        beginTraceSection("onTileAdded");
+        try {
+            Tile tile = getQsTile();
+            tile.setState(Tile.STATE_INACTIVE);
+            tile.updateTile();
+        } finally {
+            TraceUtil.endSection();
+        }
     }
 }
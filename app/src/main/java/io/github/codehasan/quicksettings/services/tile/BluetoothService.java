@@ -16,61 +16,58 @@ import static io.github.codehasan.quicksettings.ui.PermissionActivity.EXTRA_PERM
 import android.Manifest;
 import android.annotation.SuppressLint;
 import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothManager;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.pm.PackageManager;
 import android.os.Build;
+import android.provider.Settings;
 import android.service.quicksettings.Tile;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RequiresPermission;
 
 import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.annotations.TileSpec;
 import io.github.codehasan.quicksettings.services.common.StatefulTile;
+import io.github.codehasan.quicksettings.services.common.TileState;
+import io.github.codehasan.quicksettings.state.RadioStateHub;
 import io.github.codehasan.quicksettings.ui.PermissionActivity;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
 import io.github.codehasan.quicksettings.util.TileServiceUtil;
 
-public class BluetoothService extends StatefulTile {
+@TileSpec(settingsAction = Settings.ACTION_BLUETOOTH_SETTINGS)
+public class BluetoothService extends StatefulTile implements RadioStateHub.Listener {
+    private RadioStateHub radioStateHub;
     private BluetoothAdapter bluetoothAdapter;
-
-    // Receiver to listen for system-wide Bluetooth changes
-    private final BroadcastReceiver bluetoothReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            if (BluetoothAdapter.ACTION_STATE_CHANGED.equals(intent.getAction())) {
-                updateTile();
-            }
-        }
-    };
+    private LatencyTracker.Span toggleSpan;
+    private int toggleTargetState;
 
     @Override
     public void onCreate() {
         super.onCreate();
-        BluetoothManager bluetoothManager = (BluetoothManager) getSystemService(BLUETOOTH_SERVICE);
-
-        if (bluetoothManager != null) {
-            bluetoothAdapter = bluetoothManager.getAdapter();
-        } else {
-            bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-        }
+        radioStateHub = RadioStateHub.getInstance(this);
+        bluetoothAdapter = radioStateHub.getBluetoothAdapter();
     }
 
     @Override
     public void onStartListening() {
+        // Attach first so the initial state is read from the hub's fields
+        radioStateHub.addListener(this);
         super.onStartListening();
-        // Register receiver to get real-time updates
-        IntentFilter filter = new IntentFilter(BluetoothAdapter.ACTION_STATE_CHANGED);
-        registerReceiver(bluetoothReceiver, filter);
     }
 
     @Override
     public void onStopListening() {
         super.onStopListening();
-        // Always unregister to prevent memory leaks
-        unregisterReceiver(bluetoothReceiver);
+        radioStateHub.removeListener(this);
+    }
+
+    @Override
+    public void onRadioStateChanged() {
+        if (toggleSpan != null && radioStateHub.getBluetoothState() == toggleTargetState) {
+            toggleSpan.end();
+            toggleSpan = null;
+        }
+        updateTile();
     }
 
     @SuppressLint("MissingPermission")
@@ -85,44 +82,39 @@ public class BluetoothService extends StatefulTile {
         }
     }
 
+    @NonNull
     @Override
-    public void updateTile() {
-        Tile tile = getQsTile();
-        if (tile == null) return;
-
+    public TileState computeTileState() {
         if (bluetoothAdapter == null) {
-            tile.setState(Tile.STATE_UNAVAILABLE);
-            tile.updateTile();
-            return;
+            return new TileState(Tile.STATE_UNAVAILABLE, null);
         }
 
-        boolean isEnabled = bluetoothAdapter.isEnabled();
+        boolean isEnabled = radioStateHub.getBluetoothState() == BluetoothAdapter.STATE_ON;
 
         // Map state: On -> Active, Off/Turning Off -> Inactive
-        tile.setState(isEnabled ? Tile.STATE_ACTIVE : Tile.STATE_INACTIVE);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            tile.setSubtitle(getString(isEnabled ? R.string.on : R.string.off));
-        }
-        tile.updateTile();
+        return new TileState(
+                isEnabled ? Tile.STATE_ACTIVE : Tile.STATE_INACTIVE,
+                getString(isEnabled ? R.string.on : R.string.off));
     }
 
     @RequiresPermission(BLUETOOTH_CONNECT)
     private void toggleBluetooth() {
         if (bluetoothAdapter == null) return;
 
-        // Note: We do NOT call updateTile() here. We wait for the BroadcastReceiver
+        // Note: We do NOT call updateTile() here. We wait for the RadioStateHub
         // to tell us the state has actually changed.
+        toggleSpan = startLatencySpan(LatencyTracker.PATH_DIRECT);
         if (bluetoothAdapter.isEnabled()) {
+            toggleTargetState = BluetoothAdapter.STATE_OFF;
             bluetoothAdapter.disable();
         } else {
+            toggleTargetState = BluetoothAdapter.STATE_ON;
             bluetoothAdapter.enable();
         }
     }
 
     private boolean isNearbyDevicesGranted() {
-        return Build.VERSION.SDK_INT < Build.VERSION_CODES.S ||
-                checkSelfPermission(Manifest.permission.BLUETOOTH_CONNECT) ==
-                        PackageManager.PERMISSION_GRANTED;
+        return capabilities.hasBluetoothConnect();
     }
 
     @RequiresApi(api = Build.VERSION_CODES.S)
@@ -10,27 +10,18 @@
 
 package io.github.codehasan.quicksettings.services.tile;
 
-import static android.provider.Settings.Secure.LOCATION_MODE;
-import static io.github.codehasan.quicksettings.util.NullSafety.requireNonNullElse;
-import static io.github.codehasan.quicksettings.util.RootUtil.isRootAvailable;
+import static io.github.codehasan.quicksettings.util.RootCommands.NAMESPACE_GLOBAL;
+import static io.github.codehasan.quicksettings.util.RootCommands.NAMESPACE_SECURE;
+import static io.github.codehasan.quicksettings.util.RootCommands.anyOf;
+import static io.github.codehasan.quicksettings.util.RootCommands.putSetting;
 import static io.github.codehasan.quicksettings.util.RootUtil.isRootGranted;
 import static io.github.codehasan.quicksettings.util.RootUtil.runRootCommands;
 import static io.github.codehasan.quicksettings.util.RootUtil.setRootGranted;
 
 import android.app.AlertDialog;
 import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothManager;
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.location.LocationManager;
 import android.net.ConnectivityManager;
-import android.net.Network;
-import android.net.NetworkCapabilities;
-import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiManager;
-import android.os.Build;
 import android.service.quicksettings.Tile;
 import android.util.Log;
 import android.view.WindowManager;
@@ -38,95 +29,63 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 
-import java.lang.reflect.Method;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.annotations.TileSpec;
 import io.github.codehasan.quicksettings.services.common.StatefulTile;
+import io.github.codehasan.quicksettings.services.common.TileState;
+import io.github.codehasan.quicksettings.state.RadioStateHub;
+import io.github.codehasan.quicksettings.state.RadioStates;
+import io.github.codehasan.quicksettings.util.HiddenApi;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
 import io.github.codehasan.quicksettings.util.TileServiceUtil;
 
-public class GhostModeService extends StatefulTile {
+@TileSpec
+public class GhostModeService extends StatefulTile implements RadioStateHub.Listener {
+    private static final String TAG = "GhostMode";
+
+    private RadioStateHub radioStateHub;
     private BluetoothAdapter bluetoothAdapter;
-    private LocationManager locationManager;
     private WifiManager wifiManager;
     private ConnectivityManager connectivityManager;
-
-    // Internal State Tracker for Hotspot
-    private int latestHotspotState = 11;
-
-    // Hidden API Constants
-    private static final String ACTION_WIFI_AP_STATE_CHANGED = "android.net.wifi.WIFI_AP_STATE_CHANGED";
-    private static final String EXTRA_WIFI_AP_STATE = "wifi_state";
-    private static final int WIFI_AP_STATE_ENABLING = 12;
-    private static final int WIFI_AP_STATE_ENABLED = 13;
-
-    // Receiver for Bluetooth, Location, and Hotspot
-    private final BroadcastReceiver stateReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            String action = requireNonNullElse(intent.getAction(), "");
-            if (ACTION_WIFI_AP_STATE_CHANGED.equals(action)) {
-                // Cache the state from the intent to avoid reflection issues later
-                latestHotspotState = intent.getIntExtra(EXTRA_WIFI_AP_STATE, 11);
-                // Fallback for some OEMs that use a different key
-                if (latestHotspotState == 0) {
-                    latestHotspotState = intent.getIntExtra("wifi_ap_state", 11);
-                }
-            }
-            updateTile();
-        }
-    };
-
-    private final ConnectivityManager.NetworkCallback networkCallback =
-            new ConnectivityManager.NetworkCallback() {
-                @Override
-                public void onLost(@NonNull Network network) {
-                    handler.post(GhostModeService.this::updateTile);
-                }
-
-                @Override
-                public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities caps) {
-                    handler.post(GhostModeService.this::updateTile);
-                }
-            };
+    // Ended once the hub reports every radio off
+    private volatile LatencyTracker.Span ghostModeSpan;
 
     @Override
     public void onCreate() {
         super.onCreate();
-        BluetoothManager bm = (BluetoothManager) getSystemService(BLUETOOTH_SERVICE);
-        bluetoothAdapter = (bm != null) ? bm.getAdapter() : BluetoothAdapter.getDefaultAdapter();
+        radioStateHub = RadioStateHub.getInstance(this);
+        bluetoothAdapter = radioStateHub.getBluetoothAdapter();
 
         wifiManager = (WifiManager) getSystemService(WIFI_SERVICE);
-        locationManager = (LocationManager) getSystemService(LOCATION_SERVICE);
         connectivityManager = (ConnectivityManager) getSystemService(CONNECTIVITY_SERVICE);
     }
 
     @Override
     public void onStartListening() {
+        // Attach first so the initial state is read from the hub's fields
+        radioStateHub.addListener(this);
         super.onStartListening();
-
-        IntentFilter filter = new IntentFilter();
-        filter.addAction(BluetoothAdapter.ACTION_STATE_CHANGED);
-        filter.addAction(LocationManager.MODE_CHANGED_ACTION);
-        filter.addAction(WifiManager.WIFI_STATE_CHANGED_ACTION);
-        filter.addAction(ACTION_WIFI_AP_STATE_CHANGED);
-        registerReceiver(stateReceiver, filter);
-
-        if (connectivityManager != null) {
-            connectivityManager.registerDefaultNetworkCallback(networkCallback);
-        }
-
-        refreshHotspotState();
-        updateTile();
     }
 
     @Override
     public void onStopListening() {
         super.onStopListening();
-        unregisterReceiver(stateReceiver);
-        if (connectivityManager != null) {
-            connectivityManager.unregisterNetworkCallback(networkCallback);
+        radioStateHub.removeListener(this);
+    }
+
+    @Override
+    public void onRadioStateChanged() {
+        LatencyTracker.Span span = ghostModeSpan;
+        if (span != null && isGhostModeActive(radioStateHub.snapshot())) {
+            span.end();
+            ghostModeSpan = null;
         }
+        updateTile();
     }
 
     @Override
@@ -138,155 +97,107 @@ public class GhostModeService extends StatefulTile {
             return;
         }
 
-        if (!isRootGranted(this)) {
+        boolean rootGranted = isRootGranted(this);
+        if (!rootGranted) {
             TileServiceUtil.closePanels(this);
-            executor.execute(() -> {
-                if (isRootAvailable()) {
-                    setRootGranted(this, true);
-                    performGhostModeOperations();
-                } else {
-                    handler.post(this::showRootUnavailableDialog);
-                }
-            });
-        } else {
-            executor.execute(() -> {
-                if (isRootAvailable()) {
-                    performGhostModeOperations();
-                } else {
-                    setRootGranted(this, false);
-                    handler.post(this::showRootUnavailableDialog);
-                }
-            });
         }
-    }
-
-    @Override
-    public void updateTile() {
-        Tile tile = getQsTile();
-        if (tile == null) return;
-
-        boolean everythingOff = isBluetoothOff() &&
-                isWiFiOff() &&
-                isCellularDataOff() &&
-                isLocationOff() &&
-                isHotspotOff();
+        capabilities.checkRoot().thenAcceptAsync(hasRoot -> {
+            if (hasRoot != rootGranted) setRootGranted(this, hasRoot);
 
-        int newState = everythingOff ? Tile.STATE_ACTIVE : Tile.STATE_INACTIVE;
-
-        if (tile.getState() != newState) {
-            tile.setState(newState);
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                tile.setSubtitle(getString(everythingOff ? R.string.on : R.string.off));
+            if (hasRoot) {
+                performGhostModeOperations();
+            } else {
+                handler.post(this::showRootUnavailableDialog);
             }
-            tile.updateTile();
-        }
+        }, executor);
     }
 
-    private boolean isWiFiOff() {
-        if (wifiManager == null) return true;
-        int state = wifiManager.getWifiState();
-        return state != WifiManager.WIFI_STATE_ENABLED &&
-                state != WifiManager.WIFI_STATE_ENABLING;
-    }
+    @NonNull
+    @Override
+    public TileState computeTileState() {
+        boolean everythingOff = isGhostModeActive(radioStateHub.snapshot());
 
-    private boolean isBluetoothOff() {
-        if (bluetoothAdapter == null) return true;
-        int state = bluetoothAdapter.getState();
-        return state != BluetoothAdapter.STATE_ON &&
-                state != BluetoothAdapter.STATE_TURNING_ON;
+        return new TileState(
+                everythingOff ? Tile.STATE_ACTIVE : Tile.STATE_INACTIVE,
+                getString(everythingOff ? R.string.on : R.string.off));
     }
 
-    private boolean isCellularDataOff() {
-        if (connectivityManager == null) return true;
-        Network activeNetwork = connectivityManager.getActiveNetwork();
-        if (activeNetwork == null) return true;
-        NetworkCapabilities caps = connectivityManager.getNetworkCapabilities(activeNetwork);
-        if (caps == null) return true;
-        return !caps.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR);
+    private static boolean isGhostModeActive(RadioStates radios) {
+        return !radios.bluetoothOn &&
+                !radios.wifiOn &&
+                !radios.cellularDataOn &&
+                !radios.locationOn &&
+                !radios.hotspotOn;
     }
 
-    private boolean isLocationOff() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
-            if (locationManager == null) return true;
-            return !locationManager.isLocationEnabled();
-        } else {
-            return Objects.equals(getSecureSetting(LOCATION_MODE), "0");
-        }
-    }
-
-    private boolean isHotspotOff() {
-        if (latestHotspotState == WIFI_AP_STATE_ENABLED ||
-                latestHotspotState == WIFI_AP_STATE_ENABLING) {
-            return false;
-        }
+    private void performGhostModeOperations() {
+        ghostModeSpan = startLatencySpan(LatencyTracker.PATH_ROOT);
 
-        if (wifiManager == null) return true;
-        try {
-            Method method = wifiManager.getClass().getDeclaredMethod("getWifiApState");
-            method.setAccessible(true);
-            int apState = (int) method.invoke(wifiManager);
-            return apState != WIFI_AP_STATE_ENABLED &&
-                    apState != WIFI_AP_STATE_ENABLING;
-        } catch (Exception e) {
-            return true;
-        }
-    }
+        List<CompletableFuture<String>> steps = Arrays.asList(
+                // Grant WRITE_SETTINGS to disable tethering hotspot
+                runStep("write_settings",
+                        "appops set io.github.codehasan.quicksettings WRITE_SETTINGS allow"),
+                runStep("wifi",
+                        "svc wifi disable",
+                        "cmd wifi set-wifi-enabled disabled"),
+                runStep("data",
+                        "svc data disable",
+                        "cmd phone data disable"),
+                runStep("bluetooth",
+                        "svc bluetooth disable",
+                        putSetting(NAMESPACE_GLOBAL, "bluetooth_on", "0")),
+                runStep("location",
+                        "cmd location set-location-enabled false",
+                        putSetting(NAMESPACE_SECURE, "location_mode", "0")),
+                runStep("hotspot",
+                        "cmd wifi stop-softap")
+        );
 
-    private void refreshHotspotState() {
-        try {
-            Method method = wifiManager.getClass().getDeclaredMethod("getWifiApState");
-            method.setAccessible(true);
-            latestHotspotState = (int) method.invoke(wifiManager);
-        } catch (Exception ignored) {
-        }
+        // The tile's interactive lane keeps running after SystemUI unbinds it, so the
+        // device is never left half in Ghost Mode
+        CompletableFuture.allOf(steps.toArray(new CompletableFuture[0]))
+                .thenRunAsync(() -> {
+                    List<String> failedSteps = new ArrayList<>();
+                    for (CompletableFuture<String> step : steps) {
+                        String failed = step.join();
+                        if (failed != null) failedSteps.add(failed);
+                    }
+                    if (!failedSteps.isEmpty()) {
+                        Log.w(TAG, "Ghost mode steps failed: " + failedSteps);
+                    }
+
+                    if (bluetoothAdapter != null) {
+                        bluetoothAdapter.disable();
+                    }
+                    disableHotspotLegacy();
+                    updateTile();
+                }, executor);
     }
 
-    private void performGhostModeOperations() {
-        runRootCommands(
-                // Grant WRITE_SETTINGS to disable tethering hotspot
-                "appops set io.github.codehasan.quicksettings WRITE_SETTINGS allow",
-                // WiFi
-                "svc wifi disable",
-                "cmd wifi set-wifi-enabled disabled",
-                // Cellular Data
-                "svc data disable",
-                "cmd phone data disable",
-                // Bluetooth
-                "svc bluetooth disable",
-                "settings put global bluetooth_on 0",
-                // Location
-                "cmd location set-location-enabled false",
-                "settings put secure location_mode 0",
-                // Tethering Hotspot
-                "cmd wifi stop-softap"
-        );
-        if (bluetoothAdapter != null) {
-            bluetoothAdapter.disable();
-        }
-        disableHotspotLegacy();
-        handler.post(this::updateTile);
+    /**
+     * Runs the commands of a step as one batch, the commands of a step being
+     * alternative ways of reaching the same state.
+     *
+     * @return future of the step name if every command failed, or {@code null}
+     */
+    private CompletableFuture<String> runStep(String name, String... commands) {
+        return runRootCommands(anyOf(commands)).thenApply(result -> {
+            if (result.isSuccess()) return null;
+            Log.w(TAG, "Step " + name + " failed: " + result);
+            return name;
+        });
     }
 
     private void disableHotspotLegacy() {
         if (connectivityManager == null || wifiManager == null) return;
 
         // Android API 26-28
-        try {
-            Method stopTethering = connectivityManager.getClass()
-                    .getDeclaredMethod("stopTethering", int.class);
-            stopTethering.setAccessible(true);
-            stopTethering.invoke(connectivityManager, 0);
-        } catch (Exception e) {
-            Log.e("GhostMode", "Failed to stop tethering", e);
+        if (!HiddenApi.stopTethering(connectivityManager, 0)) {
+            Log.e(TAG, "Failed to stop tethering");
         }
 
-        try {
-            Method setWifiApEnabled = wifiManager.getClass()
-                    .getMethod("setWifiApEnabled", WifiConfiguration.class, boolean.class);
-            setWifiApEnabled.setAccessible(true);
-            setWifiApEnabled.invoke(wifiManager, null, false);
-        } catch (Exception e) {
-            Log.e("GhostMode", "Failed to disable wifi_ap", e);
+        if (!HiddenApi.setWifiApEnabled(wifiManager, false)) {
+            Log.e(TAG, "Failed to disable wifi_ap");
         }
     }
 
@@ -10,18 +10,24 @@
 
 package io.github.codehasan.quicksettings.services.tile;
 
-import static io.github.codehasan.quicksettings.util.RootUtil.isRootAvailable;
+import static io.github.codehasan.quicksettings.util.RootCommands.keyEvent;
 import static io.github.codehasan.quicksettings.util.RootUtil.runRootCommands;
 
 import android.app.AlertDialog;
+import android.content.Intent;
 import android.os.Build;
+import android.provider.Settings;
 import android.view.KeyEvent;
 
 import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.annotations.TileSpec;
 import io.github.codehasan.quicksettings.services.GlobalActionService;
 import io.github.codehasan.quicksettings.services.common.AccessibilityTile;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
 
+@TileSpec(settingsAction = Settings.ACTION_ACCESSIBILITY_SETTINGS)
 public class LockScreenService extends AccessibilityTile {
+    private static final long SCREEN_OFF_TIMEOUT_MS = 5000;
 
     @Override
     public String getAction() {
@@ -30,15 +36,20 @@ public class LockScreenService extends AccessibilityTile {
 
     @Override
     public void onClick() {
-        executor.execute(() -> {
-            boolean hasRoot = isRootAvailable();
-
+        capabilities.checkRoot().thenAcceptAsync(hasRoot -> {
             if (hasRoot) {
-                runRootCommands("input keyevent " + KeyEvent.KEYCODE_POWER);
+                trackLatency(startLatencySpan(LatencyTracker.PATH_ROOT));
+                runRootCommands(keyEvent(KeyEvent.KEYCODE_POWER));
             } else {
                 handler.post(this::performNormalFlow);
             }
-        });
+        }, executor);
+    }
+
+    @Override
+    public void trackLatency(LatencyTracker.Span span) {
+        // The effect of a tap is the screen turning off, whichever path locked it
+        span.endOnBroadcast(this, Intent.ACTION_SCREEN_OFF, SCREEN_OFF_TIMEOUT_MS);
     }
 
     private void performNormalFlow() {
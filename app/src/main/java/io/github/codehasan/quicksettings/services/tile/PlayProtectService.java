@@ -10,18 +10,24 @@
 
 package io.github.codehasan.quicksettings.services.tile;
 
-import static io.github.codehasan.quicksettings.util.NullSafety.isNullOrEmpty;
-import static io.github.codehasan.quicksettings.util.RootUtil.isRootAvailable;
+import static io.github.codehasan.quicksettings.util.RootCommands.NAMESPACE_GLOBAL;
+import static io.github.codehasan.quicksettings.util.RootCommands.putSetting;
 import static io.github.codehasan.quicksettings.util.RootUtil.runRootCommands;
 
 import android.content.Intent;
-import android.os.Build;
 import android.service.quicksettings.Tile;
 
+import androidx.annotation.NonNull;
+
 import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.annotations.TileSpec;
 import io.github.codehasan.quicksettings.services.common.StatefulTile;
+import io.github.codehasan.quicksettings.services.common.TileState;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
 import io.github.codehasan.quicksettings.util.TileServiceUtil;
 
+@TileSpec(
+        settingsComponent = "com.google.android.gms/.security.settings.VerifyAppsSettingsActivity")
 public class PlayProtectService extends StatefulTile {
     private static final String PLAY_PROTECT_KEY = "package_verifier_user_consent";
     private static final String PLAY_PROTECT_OFF_VALUE = "-1";
@@ -29,8 +35,7 @@ public class PlayProtectService extends StatefulTile {
 
     @Override
     public void onClick() {
-        executor.execute(() -> {
-            boolean hasRoot = isRootAvailable();
+        capabilities.checkRoot().thenAcceptAsync(hasRoot -> {
             boolean hasSecureSettings = hasSecureSettingsPermission();
 
             if (hasRoot || hasSecureSettings) {
@@ -38,31 +43,34 @@ public class PlayProtectService extends StatefulTile {
                         ? PLAY_PROTECT_OFF_VALUE : PLAY_PROTECT_ON_VALUE;
 
                 // AUTOMATION FLOW: We have power to toggle it
+                LatencyTracker.Span span = startLatencySpan(hasRoot
+                        ? LatencyTracker.PATH_ROOT : LatencyTracker.PATH_SECURE_SETTINGS);
                 if (hasRoot) {
-                    runRootCommands("settings put global " + PLAY_PROTECT_KEY + " " + newState);
+                    runRootCommands(putSetting(NAMESPACE_GLOBAL, PLAY_PROTECT_KEY, newState))
+                            .thenRun(() -> {
+                                span.end();
+                                updateTile();
+                            });
                 } else {
                     writeGlobalSetting(PLAY_PROTECT_KEY, newState);
+                    span.end();
+                    updateTile();
                 }
-                handler.post(this::updateTile);
             } else {
                 // MANUAL FLOW: We have no powers, ask user to do it
                 handler.post(this::openPlayProtectSettings);
             }
-        });
+        }, executor);
     }
 
+    @NonNull
     @Override
-    public void updateTile() {
-        Tile tile = getQsTile();
-        if (tile == null) return;
-
+    public TileState computeTileState() {
         boolean isEnabled = isPlayProtectEnabled();
 
-        tile.setState(isEnabled ? Tile.STATE_ACTIVE : Tile.STATE_INACTIVE);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            tile.setSubtitle(getString(isEnabled ? R.string.on : R.string.off));
-        }
-        tile.updateTile();
+        return new TileState(
+                isEnabled ? Tile.STATE_ACTIVE : Tile.STATE_INACTIVE,
+                getString(isEnabled ? R.string.on : R.string.off));
     }
 
     private void openPlayProtectSettings() {
@@ -74,7 +82,6 @@ public class PlayProtectService extends StatefulTile {
     }
 
     public boolean isPlayProtectEnabled() {
-        String state = getGlobalSetting(PLAY_PROTECT_KEY);
-        return !isNullOrEmpty(state) && state.equals(PLAY_PROTECT_ON_VALUE);
+        return PLAY_PROTECT_ON_VALUE.equals(getGlobalSetting(PLAY_PROTECT_KEY));
     }
 }
\ No newline at end of file
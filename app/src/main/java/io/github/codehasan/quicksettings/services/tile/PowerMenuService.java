@@ -10,27 +10,31 @@
 
 package io.github.codehasan.quicksettings.services.tile;
 
-import static io.github.codehasan.quicksettings.util.RootUtil.isRootAvailable;
+import static io.github.codehasan.quicksettings.util.RootCommands.longPressKeyEvent;
 import static io.github.codehasan.quicksettings.util.RootUtil.runRootCommands;
 
+import android.provider.Settings;
 import android.view.KeyEvent;
 
+import io.github.codehasan.quicksettings.annotations.TileSpec;
 import io.github.codehasan.quicksettings.services.GlobalActionService;
 import io.github.codehasan.quicksettings.services.common.AccessibilityTile;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
 
+@TileSpec(settingsAction = Settings.ACTION_ACCESSIBILITY_SETTINGS)
 public class PowerMenuService extends AccessibilityTile {
 
     @Override
     public void onClick() {
-        executor.execute(() -> {
-            boolean hasRoot = isRootAvailable();
-
+        capabilities.checkRoot().thenAcceptAsync(hasRoot -> {
             if (hasRoot) {
-                runRootCommands("input keyevent --longpress " + KeyEvent.KEYCODE_POWER);
+                LatencyTracker.Span span = startLatencySpan(LatencyTracker.PATH_ROOT);
+                runRootCommands(longPressKeyEvent(KeyEvent.KEYCODE_POWER))
+                        .thenRun(span::end);
             } else {
                 handler.post(super::onClick);
             }
-        });
+        }, executor);
     }
 
     @Override
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package io.github.codehasan.quicksettings.services.tile;
+
+import static io.github.codehasan.quicksettings.util.RootUtil.setRootGranted;
+
+import android.service.quicksettings.Tile;
+import android.text.format.DateUtils;
+import android.text.format.Formatter;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+
+import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.annotations.TileSpec;
+import io.github.codehasan.quicksettings.services.RecordingService;
+import io.github.codehasan.quicksettings.services.common.StatefulTile;
+import io.github.codehasan.quicksettings.services.common.TileState;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
+import io.github.codehasan.quicksettings.util.ScreenRecorder;
+import io.github.codehasan.quicksettings.util.TileServiceUtil;
+
+@TileSpec
+public class ScreenRecordService extends StatefulTile implements ScreenRecorder.Listener {
+    // The subtitle shows whole seconds
+    private static final long TICK_MS = 1_000;
+
+    private final Runnable tick = this::onTick;
+    private ScreenRecorder recorder;
+    // Main thread only
+    private boolean listening;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        recorder = ScreenRecorder.getInstance(this);
+    }
+
+    @Override
+    public void onStartListening() {
+        recorder.addListener(this);
+        super.onStartListening();
+        listening = true;
+        scheduleTick();
+    }
+
+    @Override
+    public void onStopListening() {
+        super.onStopListening();
+        listening = false;
+        handler.removeCallbacks(tick);
+        recorder.removeListener(this);
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(tick);
+        recorder.removeListener(this);
+    }
+
+    @Override
+    public void onRecordingChanged() {
+        updateTile();
+        handler.post(this::scheduleTick);
+    }
+
+    @Override
+    public void onClick() {
+        super.onClick();
+
+        switch (recorder.getStatus()) {
+            case RECORDING:
+                executor.execute(recorder::stop);
+                return;
+            case STOPPING:
+                return;
+        }
+
+        capabilities.checkRoot().thenAcceptAsync(hasRoot -> {
+            setRootGranted(this, hasRoot);
+            if (!hasRoot) {
+                handler.post(() -> showToast(R.string.no_root_access));
+                return;
+            }
+
+            LatencyTracker.Span span = startLatencySpan(LatencyTracker.PATH_ROOT);
+            // Start once the shade is gone so it does not open the recording
+            handler.post(() -> TileServiceUtil.closePanels(this,
+                    signalled -> executor.execute(() -> {
+                        if (recorder.start(span)) {
+                            RecordingService.start(this);
+                        } else {
+                            span.cancel();
+                            handler.post(() -> showToast(R.string.screen_record_failed));
+                        }
+                    })));
+        }, executor);
+    }
+
+    @NonNull
+    @Override
+    public TileState computeTileState() {
+        switch (recorder.getStatus()) {
+            case RECORDING:
+                String elapsed = DateUtils.formatElapsedTime(recorder.getElapsedMillis() / 1000);
+                String size = Formatter.formatShortFileSize(this, recorder.getBytesWritten());
+                return new TileState(Tile.STATE_ACTIVE,
+                        getString(R.string.screen_record_progress, elapsed, size));
+            case STOPPING:
+                return new TileState(Tile.STATE_ACTIVE, getString(R.string.screen_record_saving));
+            default:
+                return new TileState(Tile.STATE_INACTIVE, getString(R.string.off));
+        }
+    }
+
+    /**
+     * Keeps the subtitle ticking while the shade shows it and a recording runs.
+     */
+    private void scheduleTick() {
+        handler.removeCallbacks(tick);
+        if (listening && recorder.getStatus() != ScreenRecorder.Status.IDLE) {
+            handler.postDelayed(tick, TICK_MS);
+        }
+    }
+
+    private void onTick() {
+        updateTile();
+        scheduleTick();
+    }
+
+    private void showToast(int message) {
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+    }
+}
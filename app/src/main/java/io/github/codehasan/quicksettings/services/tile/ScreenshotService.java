@@ -10,22 +10,24 @@
 
 package io.github.codehasan.quicksettings.services.tile;
 
-import static io.github.codehasan.quicksettings.util.RootUtil.isRootAvailable;
+import static io.github.codehasan.quicksettings.util.RootCommands.keyEvent;
 import static io.github.codehasan.quicksettings.util.RootUtil.runRootCommands;
 
 import android.app.AlertDialog;
 import android.os.Build;
-import android.os.Handler;
-import android.os.Looper;
+import android.provider.Settings;
 import android.view.KeyEvent;
 
 import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.annotations.TileSpec;
 import io.github.codehasan.quicksettings.services.GlobalActionService;
 import io.github.codehasan.quicksettings.services.common.AccessibilityTile;
+import io.github.codehasan.quicksettings.state.ScreenshotSettings;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
 import io.github.codehasan.quicksettings.util.TileServiceUtil;
 
+@TileSpec(settingsAction = Settings.ACTION_ACCESSIBILITY_SETTINGS)
 public class ScreenshotService extends AccessibilityTile {
-
     @Override
     public String getAction() {
         return GlobalActionService.ACTION_SCREENSHOT;
@@ -33,18 +35,28 @@ public class ScreenshotService extends AccessibilityTile {
 
     @Override
     public void onClick() {
-        executor.execute(() -> {
-            boolean hasRoot = isRootAvailable();
-
-            if (hasRoot) {
-                TileServiceUtil.closePanels(this);
-                new Handler(Looper.getMainLooper()).postDelayed(
-                        () -> runRootCommands("input keyevent " + KeyEvent.KEYCODE_SCREENSHOT),
-                        500);
+        capabilities.checkRoot().thenAcceptAsync(hasRoot -> {
+            if (hasRoot && !capturesDirectly()) {
+                LatencyTracker.Span span = startLatencySpan(LatencyTracker.PATH_ROOT);
+                handler.post(() -> TileServiceUtil.closePanels(this,
+                        signalled -> runRootCommands(keyEvent(KeyEvent.KEYCODE_SCREENSHOT))
+                                .thenRun(span::end)));
             } else {
                 handler.post(this::performNormalFlow);
             }
-        });
+        }, executor);
+    }
+
+    /**
+     * A picked capture format only applies to the accessibility service, so it wins
+     * over the root path whenever the service is available.
+     */
+    private boolean capturesDirectly() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) return false;
+
+        ScreenshotSettings.Format format = ScreenshotSettings.getInstance(this).getFormat();
+        return format != ScreenshotSettings.Format.SYSTEM
+                && capabilities.isAccessibilityServiceEnabled();
     }
 
     private void performNormalFlow() {
@@ -65,9 +77,7 @@ public class ScreenshotService extends AccessibilityTile {
         }
 
         if (isAccessibilityServiceEnabled()) {
-            TileServiceUtil.closePanels(this);
-            new Handler(Looper.getMainLooper())
-                    .postDelayed(super::onClick, 500);
+            TileServiceUtil.closePanels(this, signalled -> super.onClick());
         } else {
             super.onClick();
         }
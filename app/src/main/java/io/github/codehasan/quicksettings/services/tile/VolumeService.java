@@ -17,9 +17,12 @@ import android.media.AudioManager;
 import android.os.Build;
 import android.provider.Settings;
 
+import io.github.codehasan.quicksettings.annotations.TileSpec;
 import io.github.codehasan.quicksettings.services.common.StatelessTile;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
 import io.github.codehasan.quicksettings.util.TileServiceUtil;
 
+@TileSpec(settingsAction = Settings.ACTION_SOUND_SETTINGS)
 public class VolumeService extends StatelessTile {
     private AudioManager audioManager;
 
@@ -31,9 +34,12 @@ public class VolumeService extends StatelessTile {
 
     @Override
     public void onClick() {
+        LatencyTracker.Span span = startLatencySpan(LatencyTracker.PATH_DIRECT);
+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
             try {
                 TileServiceUtil.startActivity(this, new Intent(Settings.Panel.ACTION_VOLUME));
+                span.end();
                 return;
             } catch (ActivityNotFoundException ignored) {
             }
@@ -41,6 +47,7 @@ public class VolumeService extends StatelessTile {
 
         if (audioManager != null) {
             audioManager.adjustVolume(AudioManager.ADJUST_SAME, AudioManager.FLAG_SHOW_UI);
+            span.end();
         }
     }
 }
\ No newline at end of file
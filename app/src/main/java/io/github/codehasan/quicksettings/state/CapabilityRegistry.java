@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.state;
+
+import static io.github.codehasan.quicksettings.util.NullSafety.isNullOrEmpty;
+
+import android.Manifest;
+import android.content.ComponentName;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+
+import io.github.codehasan.quicksettings.services.GlobalActionService;
+import io.github.codehasan.quicksettings.util.RootShell;
+import io.github.codehasan.quicksettings.util.RootUtil;
+
+/**
+ * Process-wide cache of what the app is currently allowed to do.
+ * <p>
+ * Answers are kept in memory and refreshed by events instead of being probed on every
+ * tap: a granted root follows the outcome of the shared {@link RootShell} session, the
+ * accessibility grant follows a settings observer and runtime permissions are
+ * re-checked when {@link #refreshPermissions()} is called after a permission result.
+ */
+public class CapabilityRegistry implements RootShell.Listener {
+    private static CapabilityRegistry instance;
+
+    private final Context context;
+    private final ComponentName globalActionService;
+
+    // only a true answer is trusted, anything else is probed again on the next check
+    @Nullable
+    private volatile Boolean root;
+    private volatile boolean secureSettings;
+    private volatile boolean bluetoothConnect;
+    private volatile boolean accessibilityService;
+
+    private CapabilityRegistry(Context context) {
+        this.context = context;
+        this.globalActionService = new ComponentName(context, GlobalActionService.class);
+
+        refreshPermissions();
+        refreshAccessibilityService();
+        observeAccessibilitySettings();
+        RootShell.getInstance().setListener(this);
+    }
+
+    @NonNull
+    public static synchronized CapabilityRegistry getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new CapabilityRegistry(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Completes with {@code true} right away once root is known to be granted, and probes
+     * the su session otherwise, so a grant after a denied or timed out prompt is picked
+     * up on the next tap. Never blocks the caller.
+     */
+    @NonNull
+    public CompletableFuture<Boolean> checkRoot() {
+        if (Boolean.TRUE.equals(root)) return CompletableFuture.completedFuture(true);
+        return refreshRoot();
+    }
+
+    /**
+     * Probes root again regardless of the cached state, e.g. after the user asked to
+     * retry from MainActivity.
+     */
+    @NonNull
+    public CompletableFuture<Boolean> refreshRoot() {
+        // The result is delivered through onRootStateChanged as well
+        return RootUtil.checkRootAvailable().thenApply(granted -> {
+            root = granted;
+            return granted;
+        });
+    }
+
+    @Override
+    public void onRootStateChanged(boolean granted) {
+        root = granted;
+    }
+
+    public boolean hasSecureSettings() {
+        // Granting WRITE_SECURE_SETTINGS through adb sends no event, so only a
+        // positive answer can be trusted until the next refresh
+        if (!secureSettings) {
+            secureSettings = isGranted(Manifest.permission.WRITE_SECURE_SETTINGS);
+        }
+        return secureSettings;
+    }
+
+    public boolean hasBluetoothConnect() {
+        return bluetoothConnect;
+    }
+
+    public boolean isAccessibilityServiceEnabled() {
+        return accessibilityService;
+    }
+
+    /**
+     * Re-reads runtime permissions. Revoking a permission kills the process, so this
+     * only needs to run when something may have been granted.
+     */
+    public void refreshPermissions() {
+        secureSettings = isGranted(Manifest.permission.WRITE_SECURE_SETTINGS);
+        bluetoothConnect = Build.VERSION.SDK_INT < Build.VERSION_CODES.S ||
+                isGranted(Manifest.permission.BLUETOOTH_CONNECT);
+    }
+
+    private boolean isGranted(String permission) {
+        return context.checkSelfPermission(permission) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private void observeAccessibilitySettings() {
+        ContentObserver observer = new ContentObserver(new Handler(Looper.getMainLooper())) {
+            @Override
+            public void onChange(boolean selfChange) {
+                refreshAccessibilityService();
+            }
+        };
+
+        ContentResolver resolver = context.getContentResolver();
+        resolver.registerContentObserver(
+                Settings.Secure.getUriFor(Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES),
+                false, observer);
+        resolver.registerContentObserver(
+                Settings.Secure.getUriFor(Settings.Secure.ACCESSIBILITY_ENABLED),
+                false, observer);
+    }
+
+    private void refreshAccessibilityService() {
+        ContentResolver resolver = context.getContentResolver();
+
+        if (Settings.Secure.getInt(resolver, Settings.Secure.ACCESSIBILITY_ENABLED, 0) != 1) {
+            accessibilityService = false;
+            return;
+        }
+
+        String enabledServices = Settings.Secure.getString(resolver,
+                Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES);
+        if (isNullOrEmpty(enabledServices)) {
+            accessibilityService = false;
+            return;
+        }
+
+        for (String flattened : enabledServices.split(":")) {
+            if (globalActionService.equals(ComponentName.unflattenFromString(flattened))) {
+                accessibilityService = true;
+                return;
+            }
+        }
+        accessibilityService = false;
+    }
+}
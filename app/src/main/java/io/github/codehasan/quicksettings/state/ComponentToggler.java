@@ -0,0 +1,152 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.state;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.codehasan.quicksettings.util.TaskScheduler;
+
+/**
+ * Enables and disables the app's own components off the main thread.
+ * <p>
+ * Requests wait for {@link #COALESCE_MS} so a burst of flips, or a bulk action, turns
+ * into one write per component. On API 33+ the whole batch goes to the package manager
+ * in a single call.
+ */
+public class ComponentToggler {
+    public static final String TAG = "ComponentToggler";
+    // Long enough to gather a quick double flip into a single write
+    private static final long COALESCE_MS = 300;
+
+    private static ComponentToggler instance;
+
+    private final PackageManager packageManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final TaskScheduler.Scope executor =
+            TaskScheduler.getInstance().newScope(TAG);
+    private final Runnable flushRunnable = this::flush;
+    // Latest requested state per component, main thread only
+    private final Map<ComponentName, Request> pending = new LinkedHashMap<>();
+
+    public interface Callback {
+        /**
+         * Called on the main thread once the change was written, or failed and left the
+         * component as it was.
+         */
+        void onResult(@NonNull ComponentName component, boolean success);
+    }
+
+    private ComponentToggler(Context context) {
+        packageManager = context.getPackageManager();
+    }
+
+    @NonNull
+    public static synchronized ComponentToggler getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new ComponentToggler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Queues the component to be enabled or disabled, replacing any request for it
+     * that has not been written yet.
+     */
+    @MainThread
+    public void request(@NonNull ComponentName component, boolean enabled,
+                        @NonNull Callback callback) {
+        pending.put(component, new Request(component, enabled, callback));
+        handler.removeCallbacks(flushRunnable);
+        handler.postDelayed(flushRunnable, COALESCE_MS);
+    }
+
+    @MainThread
+    private void flush() {
+        if (pending.isEmpty()) return;
+
+        List<Request> batch = new ArrayList<>(pending.values());
+        pending.clear();
+        executor.execute(() -> apply(batch));
+    }
+
+    private void apply(List<Request> batch) {
+        boolean[] applied = new boolean[batch.size()];
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            try {
+                applyAll(batch);
+                Arrays.fill(applied, true);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to apply " + batch.size() + " component changes", e);
+            }
+        } else {
+            for (int i = 0; i < batch.size(); i++) {
+                Request request = batch.get(i);
+                try {
+                    packageManager.setComponentEnabledSetting(request.component,
+                            stateOf(request.enabled), PackageManager.DONT_KILL_APP);
+                    applied[i] = true;
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Failed to apply " + request.component, e);
+                }
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Request request = batch.get(i);
+            boolean success = applied[i];
+            handler.post(() -> request.callback.onResult(request.component, success));
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.TIRAMISU)
+    private void applyAll(List<Request> batch) {
+        List<PackageManager.ComponentEnabledSetting> settings = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            settings.add(new PackageManager.ComponentEnabledSetting(request.component,
+                    stateOf(request.enabled), PackageManager.DONT_KILL_APP));
+        }
+        packageManager.setComponentEnabledSettings(settings);
+    }
+
+    private static int stateOf(boolean enabled) {
+        return enabled ?
+                PackageManager.COMPONENT_ENABLED_STATE_ENABLED :
+                PackageManager.COMPONENT_ENABLED_STATE_DISABLED;
+    }
+
+    private static class Request {
+        final ComponentName component;
+        final boolean enabled;
+        final Callback callback;
+
+        Request(ComponentName component, boolean enabled, Callback callback) {
+            this.component = component;
+            this.enabled = enabled;
+            this.callback = callback;
+        }
+    }
+}
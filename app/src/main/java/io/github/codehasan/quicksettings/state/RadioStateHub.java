@@ -0,0 +1,268 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.state;
+
+import static android.provider.Settings.Secure.LOCATION_MODE;
+import static io.github.codehasan.quicksettings.util.NullSafety.requireNonNullElse;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.location.LocationManager;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.wifi.WifiManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import io.github.codehasan.quicksettings.util.HiddenApi;
+
+/**
+ * Watches Bluetooth, WiFi, location, hotspot and cellular data once for the whole
+ * process and keeps their latest values in memory.
+ * <p>
+ * System callbacks are only registered while at least one {@link Listener} is
+ * attached, so tiles attach in {@code onStartListening} and detach in
+ * {@code onStopListening}. Reads while nobody is listening query the system directly,
+ * so a rule over several radios should read one {@link #snapshot()}.
+ */
+public class RadioStateHub {
+    // Hidden API Constants
+    private static final String ACTION_WIFI_AP_STATE_CHANGED = "android.net.wifi.WIFI_AP_STATE_CHANGED";
+    private static final String EXTRA_WIFI_AP_STATE = "wifi_state";
+    private static final int WIFI_AP_STATE_DISABLED = 11;
+    private static final int WIFI_AP_STATE_ENABLING = 12;
+    private static final int WIFI_AP_STATE_ENABLED = 13;
+
+    private static RadioStateHub instance;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new ArrayList<>();
+
+    @Nullable
+    private final BluetoothAdapter bluetoothAdapter;
+    @Nullable
+    private final WifiManager wifiManager;
+    @Nullable
+    private final LocationManager locationManager;
+    @Nullable
+    private final ConnectivityManager connectivityManager;
+
+    private volatile boolean watching;
+    private volatile int bluetoothState = BluetoothAdapter.STATE_OFF;
+    private volatile int wifiState = WifiManager.WIFI_STATE_DISABLED;
+    private volatile int hotspotState = WIFI_AP_STATE_DISABLED;
+    private volatile boolean locationEnabled;
+    private volatile boolean cellularDataActive;
+
+    private final BroadcastReceiver stateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = requireNonNullElse(intent.getAction(), "");
+            switch (action) {
+                case BluetoothAdapter.ACTION_STATE_CHANGED:
+                    bluetoothState = intent.getIntExtra(BluetoothAdapter.EXTRA_STATE,
+                            BluetoothAdapter.STATE_OFF);
+                    break;
+                case WifiManager.WIFI_STATE_CHANGED_ACTION:
+                    wifiState = intent.getIntExtra(WifiManager.EXTRA_WIFI_STATE,
+                            WifiManager.WIFI_STATE_UNKNOWN);
+                    break;
+                case LocationManager.MODE_CHANGED_ACTION:
+                    locationEnabled = queryLocationEnabled();
+                    break;
+                case ACTION_WIFI_AP_STATE_CHANGED:
+                    int state = intent.getIntExtra(EXTRA_WIFI_AP_STATE, WIFI_AP_STATE_DISABLED);
+                    // Fallback for some OEMs that use a different key
+                    if (state == 0) {
+                        state = intent.getIntExtra("wifi_ap_state", WIFI_AP_STATE_DISABLED);
+                    }
+                    hotspotState = state;
+                    break;
+                default:
+                    return;
+            }
+            dispatchChanged();
+        }
+    };
+
+    private final ConnectivityManager.NetworkCallback networkCallback =
+            new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onLost(@NonNull Network network) {
+                    onCellularChanged(queryCellularDataActive());
+                }
+
+                @Override
+                public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities caps) {
+                    onCellularChanged(caps.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR));
+                }
+            };
+
+    private RadioStateHub(Context context) {
+        this.context = context;
+
+        BluetoothManager bm = (BluetoothManager) context.getSystemService(Context.BLUETOOTH_SERVICE);
+        bluetoothAdapter = (bm != null) ? bm.getAdapter() : BluetoothAdapter.getDefaultAdapter();
+        wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+        locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    @NonNull
+    public static synchronized RadioStateHub getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new RadioStateHub(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @MainThread
+    public void addListener(@NonNull Listener listener) {
+        if (listeners.contains(listener)) return;
+        listeners.add(listener);
+        if (listeners.size() == 1) startWatching();
+    }
+
+    @MainThread
+    public void removeListener(@NonNull Listener listener) {
+        if (listeners.remove(listener) && listeners.isEmpty()) {
+            stopWatching();
+        }
+    }
+
+    @Nullable
+    public BluetoothAdapter getBluetoothAdapter() {
+        return bluetoothAdapter;
+    }
+
+    public int getBluetoothState() {
+        if (!watching) refreshBluetooth();
+        return bluetoothState;
+    }
+
+    /**
+     * Reads every radio at once. While nobody is listening each system service is
+     * queried once per call, not once per radio a rule looks at.
+     */
+    @NonNull
+    public RadioStates snapshot() {
+        if (!watching) refreshAll();
+        return new RadioStates(
+                bluetoothState == BluetoothAdapter.STATE_ON ||
+                        bluetoothState == BluetoothAdapter.STATE_TURNING_ON,
+                wifiState == WifiManager.WIFI_STATE_ENABLED ||
+                        wifiState == WifiManager.WIFI_STATE_ENABLING,
+                cellularDataActive,
+                locationEnabled,
+                hotspotState == WIFI_AP_STATE_ENABLED ||
+                        hotspotState == WIFI_AP_STATE_ENABLING);
+    }
+
+    private void startWatching() {
+        refreshAll();
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(BluetoothAdapter.ACTION_STATE_CHANGED);
+        filter.addAction(LocationManager.MODE_CHANGED_ACTION);
+        filter.addAction(WifiManager.WIFI_STATE_CHANGED_ACTION);
+        filter.addAction(ACTION_WIFI_AP_STATE_CHANGED);
+        context.registerReceiver(stateReceiver, filter);
+
+        if (connectivityManager != null) {
+            connectivityManager.registerDefaultNetworkCallback(networkCallback);
+        }
+        watching = true;
+    }
+
+    private void stopWatching() {
+        watching = false;
+        context.unregisterReceiver(stateReceiver);
+        if (connectivityManager != null) {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        }
+    }
+
+    private void refreshAll() {
+        refreshBluetooth();
+        wifiState = wifiManager != null
+                ? wifiManager.getWifiState() : WifiManager.WIFI_STATE_DISABLED;
+        locationEnabled = queryLocationEnabled();
+        cellularDataActive = queryCellularDataActive();
+        hotspotState = queryHotspotState();
+    }
+
+    private void refreshBluetooth() {
+        bluetoothState = bluetoothAdapter != null
+                ? bluetoothAdapter.getState() : BluetoothAdapter.STATE_OFF;
+    }
+
+    private boolean queryLocationEnabled() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return locationManager != null && locationManager.isLocationEnabled();
+        } else {
+            return !Objects.equals(
+                    Settings.Secure.getString(context.getContentResolver(), LOCATION_MODE), "0");
+        }
+    }
+
+    private boolean queryCellularDataActive() {
+        if (connectivityManager == null) return false;
+        Network activeNetwork = connectivityManager.getActiveNetwork();
+        if (activeNetwork == null) return false;
+        NetworkCapabilities caps = connectivityManager.getNetworkCapabilities(activeNetwork);
+        if (caps == null) return false;
+        return caps.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR);
+    }
+
+    private int queryHotspotState() {
+        if (wifiManager == null) return WIFI_AP_STATE_DISABLED;
+        return HiddenApi.getWifiApState(wifiManager, WIFI_AP_STATE_DISABLED);
+    }
+
+    private void onCellularChanged(boolean active) {
+        if (cellularDataActive == active) return;
+        cellularDataActive = active;
+        dispatchChanged();
+    }
+
+    private void dispatchChanged() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            handler.post(this::dispatchChanged);
+            return;
+        }
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onRadioStateChanged();
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called on the main thread after any watched radio changed state.
+         */
+        void onRadioStateChanged();
+    }
+}
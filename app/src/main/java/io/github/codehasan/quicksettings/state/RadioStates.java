@@ -0,0 +1,31 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.state;
+
+/**
+ * The radios a tile depends on, as read at one moment by {@link RadioStateHub#snapshot()}.
+ */
+public class RadioStates {
+    public final boolean bluetoothOn;
+    public final boolean wifiOn;
+    public final boolean cellularDataOn;
+    public final boolean locationOn;
+    public final boolean hotspotOn;
+
+    public RadioStates(boolean bluetoothOn, boolean wifiOn, boolean cellularDataOn,
+                       boolean locationOn, boolean hotspotOn) {
+        this.bluetoothOn = bluetoothOn;
+        this.wifiOn = wifiOn;
+        this.cellularDataOn = cellularDataOn;
+        this.locationOn = locationOn;
+        this.hotspotOn = hotspotOn;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.state;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+/**
+ * How the screenshot tile captures the screen: through the system screenshot, or on
+ * API 30+ by the accessibility service itself, encoded in one of the formats below.
+ */
+public class ScreenshotSettings {
+    private static final String PREFS_NAME = "screenshot";
+    private static final String KEY_FORMAT = "format";
+
+    private static ScreenshotSettings instance;
+
+    private final SharedPreferences preferences;
+
+    public enum Format {
+        // The system screenshot global action, with its own UI and storage
+        SYSTEM(null, null, 0),
+        PNG("image/png", "png", 100),
+        WEBP("image/webp", "webp", 100),
+        JPEG("image/jpeg", "jpg", 95);
+
+        public final String mimeType;
+        public final String extension;
+        public final int quality;
+
+        Format(String mimeType, String extension, int quality) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+            this.quality = quality;
+        }
+
+        /**
+         * WEBP_LOSSLESS only exists on API 30+, the same level direct capture needs.
+         */
+        @RequiresApi(api = Build.VERSION_CODES.R)
+        @NonNull
+        public Bitmap.CompressFormat getCompressFormat() {
+            switch (this) {
+                case WEBP:
+                    return Bitmap.CompressFormat.WEBP_LOSSLESS;
+                case JPEG:
+                    return Bitmap.CompressFormat.JPEG;
+                default:
+                    return Bitmap.CompressFormat.PNG;
+            }
+        }
+    }
+
+    private ScreenshotSettings(Context context) {
+        preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    @NonNull
+    public static synchronized ScreenshotSettings getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new ScreenshotSettings(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @NonNull
+    public Format getFormat() {
+        String name = preferences.getString(KEY_FORMAT, null);
+        if (name == null) return Format.SYSTEM;
+        try {
+            return Format.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return Format.SYSTEM;
+        }
+    }
+
+    public void setFormat(@NonNull Format format) {
+        preferences.edit().putString(KEY_FORMAT, format.name()).apply();
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.state;
+
+import static android.content.pm.PackageManager.GET_SERVICES;
+import static android.content.pm.PackageManager.MATCH_DISABLED_COMPONENTS;
+import static io.github.codehasan.quicksettings.util.NullSafety.isNullOrEmpty;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.codehasan.quicksettings.BuildConfig;
+import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.ui.model.ServiceItem;
+
+/**
+ * The tiles declared in the manifest, as listed by MainActivity.
+ * <p>
+ * Scanning the manifest needs a package manager call, so the result is cached and only
+ * rebuilt when the installed build changes. Whether each tile is enabled can change at any
+ * time and is always read from the package manager.
+ */
+public class TileCatalog {
+    private static final String TAG = "TileCatalog";
+    private static final String PREFS_NAME = "tile_catalog";
+    private static final String KEY_BUILD = "build";
+    private static final String KEY_ENTRIES = "entries";
+    private static final String TILE_PERMISSION = "android.permission.BIND_QUICK_SETTINGS_TILE";
+
+    private static TileCatalog instance;
+
+    private final Context context;
+    private final SharedPreferences preferences;
+
+    private TileCatalog(Context context) {
+        this.context = context;
+        preferences = context.createDeviceProtectedStorageContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    @NonNull
+    public static synchronized TileCatalog getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new TileCatalog(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * @return every tile with its title, description and why it is unsupported, the
+     * enabled state is filled in by {@link #loadEnabledState(ServiceItem)}
+     */
+    @WorkerThread
+    @NonNull
+    public List<ServiceItem> load() {
+        String build = getBuildKey();
+        List<ServiceItem> items = readCache(build);
+        if (items == null) {
+            items = scanManifest();
+            writeCache(build, items);
+        }
+        return items;
+    }
+
+    /**
+     * Reads whether the tile's component is enabled, a binder call per tile.
+     */
+    @WorkerThread
+    public boolean loadEnabledState(@NonNull ServiceItem item) {
+        int state = context.getPackageManager().getComponentEnabledSetting(item.component);
+        return state == PackageManager.COMPONENT_ENABLED_STATE_ENABLED ||
+                (state == PackageManager.COMPONENT_ENABLED_STATE_DEFAULT && item.enabledByDefault);
+    }
+
+    @NonNull
+    private List<ServiceItem> scanManifest() {
+        PackageManager pm = context.getPackageManager();
+        List<ServiceItem> items = new ArrayList<>();
+        ServiceInfo[] services = null;
+
+        try {
+            PackageInfo pi = pm.getPackageInfo(context.getPackageName(),
+                    GET_SERVICES | MATCH_DISABLED_COMPONENTS);
+            services = pi.services;
+        } catch (PackageManager.NameNotFoundException ignored) {
+        }
+
+        if (isNullOrEmpty(services)) return items;
+
+        for (ServiceInfo service : services) {
+            if (!TILE_PERMISSION.equals(service.permission)) continue;
+
+            int index = TileRegistry.indexOf(service.name);
+            int minSdk = index < 0 ? 0 : TileRegistry.minSdk(index);
+
+            items.add(createItem(service.name, service.labelRes, service.descriptionRes,
+                    service.icon, service.enabled, minSdk));
+        }
+        return items;
+    }
+
+    @NonNull
+    private ServiceItem createItem(String className, int titleRes, int descriptionRes,
+                                   int icon, boolean enabledByDefault, int minSdk) {
+        ServiceItem item = new ServiceItem();
+        item.component = new ComponentName(context.getPackageName(), className);
+        item.titleRes = titleRes;
+        item.descriptionRes = descriptionRes;
+        item.title = context.getString(titleRes);
+        item.description = context.getString(descriptionRes);
+        item.icon = icon;
+        item.enabledByDefault = enabledByDefault;
+        item.minSdk = minSdk;
+
+        if (!enabledByDefault) {
+            item.reason = minSdk > 0
+                    ? context.getString(R.string.not_supported_below_api, minSdk)
+                    : context.getString(R.string.not_supported);
+        }
+        return item;
+    }
+
+    /**
+     * Identifies the installed APK. Every install or update changes lastUpdateTime, so
+     * a rebuild that keeps the versionCode but adds a tile or renumbers resources still
+     * invalidates the cache.
+     */
+    @NonNull
+    private String getBuildKey() {
+        long lastUpdateTime = 0;
+        try {
+            lastUpdateTime = context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException ignored) {
+        }
+        return BuildConfig.VERSION_CODE + ":" + lastUpdateTime;
+    }
+
+    /**
+     * Resource ids are cached rather than strings, so a language change needs no rescan.
+     * The ids only stay valid within one build, hence the build key.
+     */
+    @Nullable
+    private List<ServiceItem> readCache(String build) {
+        if (!build.equals(preferences.getString(KEY_BUILD, null))) return null;
+
+        String json = preferences.getString(KEY_ENTRIES, null);
+        if (json == null) return null;
+
+        try {
+            JSONArray entries = new JSONArray(json);
+            List<ServiceItem> items = new ArrayList<>(entries.length());
+            for (int i = 0; i < entries.length(); i++) {
+                JSONObject entry = entries.getJSONObject(i);
+                items.add(createItem(
+                        entry.getString("class"),
+                        entry.getInt("title"),
+                        entry.getInt("description"),
+                        entry.getInt("icon"),
+                        entry.getBoolean("enabled"),
+                        entry.getInt("minSdk")));
+            }
+            return items;
+        } catch (JSONException | RuntimeException e) {
+            // A resource that no longer exists or a damaged entry, rescan
+            Log.w(TAG, "Dropping cached catalog", e);
+            return null;
+        }
+    }
+
+    private void writeCache(String build, List<ServiceItem> items) {
+        JSONArray entries = new JSONArray();
+        try {
+            for (ServiceItem item : items) {
+                entries.put(new JSONObject()
+                        .put("class", item.component.getClassName())
+                        .put("title", item.titleRes)
+                        .put("description", item.descriptionRes)
+                        .put("icon", item.icon)
+                        .put("enabled", item.enabledByDefault)
+                        .put("minSdk", item.minSdk));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to cache catalog", e);
+            return;
+        }
+
+        preferences.edit()
+                .putString(KEY_BUILD, build)
+                .putString(KEY_ENTRIES, entries.toString())
+                .apply();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.state;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+import io.github.codehasan.quicksettings.services.common.TileState;
+
+/**
+ * Last known state of every stateful tile, so a tile can render something right away
+ * when the shade opens and reconcile with the real state afterwards.
+ * <p>
+ * Kept in device protected storage, which is readable before the first unlock.
+ */
+public class TileSnapshotStore {
+    private static final String PREFS_NAME = "tile_snapshots";
+    private static final String KEY_STATE = ".state";
+    private static final String KEY_SUBTITLE = ".subtitle";
+
+    private static TileSnapshotStore instance;
+
+    private final SharedPreferences preferences;
+
+    private TileSnapshotStore(Context context) {
+        preferences = context.createDeviceProtectedStorageContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    @NonNull
+    public static synchronized TileSnapshotStore getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new TileSnapshotStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @Nullable
+    public TileState get(@NonNull String tile) {
+        if (!preferences.contains(tile + KEY_STATE)) return null;
+
+        return new TileState(
+                preferences.getInt(tile + KEY_STATE, 0),
+                preferences.getString(tile + KEY_SUBTITLE, null));
+    }
+
+    public void put(@NonNull String tile, @NonNull TileState state) {
+        TileState current = get(tile);
+        if (current != null && current.state == state.state &&
+                Objects.equals(current.subtitle, state.subtitle)) {
+            return;
+        }
+
+        preferences.edit()
+                .putInt(tile + KEY_STATE, state.state)
+                .putString(tile + KEY_SUBTITLE, state.subtitle)
+                .apply();
+    }
+}
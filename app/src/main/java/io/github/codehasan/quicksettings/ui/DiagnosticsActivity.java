@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.ui;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.widget.TextView;
+
+import androidx.activity.EdgeToEdge;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
+
+import com.google.android.material.appbar.MaterialToolbar;
+
+import java.util.List;
+
+import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.services.GlobalActionChannel;
+import io.github.codehasan.quicksettings.services.GlobalActionService;
+import io.github.codehasan.quicksettings.util.LatencyTracker;
+import io.github.codehasan.quicksettings.util.RootShell;
+import io.github.codehasan.quicksettings.util.TaskScheduler;
+
+/**
+ * Shows the tap latencies recorded by {@link LatencyTracker} together with the
+ * scheduler and root shell backlog of this process, and what the accessibility event
+ * subscription of {@link GlobalActionService} has cost.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+    private TextView latencies;
+    private TextView queues;
+    private TextView accessibilityEvents;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        EdgeToEdge.enable(this);
+        setContentView(R.layout.activity_diagnostics);
+        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
+            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+            return insets;
+        });
+
+        latencies = findViewById(R.id.latencies);
+        queues = findViewById(R.id.queues);
+        accessibilityEvents = findViewById(R.id.accessibility_events);
+
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        toolbar.setNavigationOnClickListener(v -> finish());
+        toolbar.setOnMenuItemClickListener(item -> {
+            if (item.getItemId() == R.id.refresh) {
+                render();
+            }
+            return true;
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        render();
+    }
+
+    private void render() {
+        List<String> lines = LatencyTracker.getInstance().describe();
+        latencies.setText(lines.isEmpty()
+                ? getString(R.string.no_latency_samples)
+                : joinLines(lines));
+
+        StringBuilder builder = new StringBuilder();
+        TaskScheduler scheduler = TaskScheduler.getInstance();
+        for (TaskScheduler.Lane lane : TaskScheduler.Lane.values()) {
+            TaskScheduler.LaneStats stats = scheduler.getStats(lane);
+            builder.append(lane.name().toLowerCase())
+                    .append("\n  queued=").append(stats.getQueueDepth())
+                    .append("  done=").append(stats.getCompleted())
+                    .append("  wait=").append(stats.getLastWaitMillis()).append("ms")
+                    .append("  maxWait=").append(stats.getMaxWaitMillis()).append("ms")
+                    .append('\n');
+        }
+
+        builder.append("pool")
+                .append("\n  stalls=").append(scheduler.getStallCount())
+                .append('\n');
+
+        RootShell rootShell = RootShell.getInstance();
+        builder.append("root shell")
+                .append("\n  queued=").append(rootShell.getQueueDepth())
+                .append("  running=").append(rootShell.getRunningMillis()).append("ms");
+        queues.setText(builder);
+
+        GlobalActionService.EventStats eventStats = GlobalActionService.getEventStats();
+        accessibilityEvents.setText("events=" + eventStats.getEventCount() +
+                "  cpu=" + eventStats.getCpuMillis() + "ms" +
+                "\nservice=" + describeService());
+    }
+
+    private static String describeService() {
+        GlobalActionChannel channel = GlobalActionChannel.getInstance();
+        // Read before checkAlive() renews it
+        long lastHeartbeat = channel.getLastHeartbeatMillis();
+        String age = lastHeartbeat == 0
+                ? "never"
+                : (SystemClock.elapsedRealtime() - lastHeartbeat) / 1000 + "s ago";
+        return (channel.checkAlive() ? "connected" : "disconnected") +
+                "  lastHeartbeat=" + age;
+    }
+
+    private static String joinLines(List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            if (builder.length() > 0) builder.append('\n');
+            builder.append(line);
+        }
+        return builder.toString();
+    }
+}
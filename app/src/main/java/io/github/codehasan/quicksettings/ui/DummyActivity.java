@@ -11,15 +11,55 @@
 package io.github.codehasan.quicksettings.ui;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
+import io.github.codehasan.quicksettings.util.TileServiceUtil;
+
+/**
+ * Started to collapse the shade. With {@link #EXTRA_COLLAPSE_TOKEN} it stays until its
+ * window gains focus, which the shade holds until it has collapsed, then finishes and
+ * tells {@link TileServiceUtil} once it is destroyed and no longer on screen.
+ */
 public class DummyActivity extends AppCompatActivity {
+    public static final String EXTRA_COLLAPSE_TOKEN = "collapse_token";
+    public static final String EXTRA_TIMEOUT = "timeout";
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private int collapseToken;
+    private boolean collapsed;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+
+        collapseToken = getIntent().getIntExtra(EXTRA_COLLAPSE_TOKEN, 0);
+        if (collapseToken == 0) {
+            finish();
+            return;
+        }
+        // Never outlive the caller's fallback, e.g. when the keyguard keeps focus
+        handler.postDelayed(this::finish, getIntent().getLongExtra(EXTRA_TIMEOUT, 0));
+    }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasFocus) {
+        super.onWindowFocusChanged(hasFocus);
+        if (!hasFocus || collapseToken == 0 || collapsed) return;
+
+        collapsed = true;
         finish();
+        // No exit animation, the caller is waiting for this window to go away
+        overridePendingTransition(0, 0);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacksAndMessages(null);
+        if (collapsed) TileServiceUtil.onShadeCollapsed(collapseToken);
     }
 }
@@ -1,20 +1,13 @@
 package io.github.codehasan.quicksettings.ui;
 
-import static android.content.pm.PackageManager.GET_SERVICES;
-import static android.content.pm.PackageManager.MATCH_DISABLED_COMPONENTS;
 import static io.github.codehasan.quicksettings.constants.Repository.GITHUB_REPO;
 import static io.github.codehasan.quicksettings.util.NullSafety.isNullOrEmpty;
-import static io.github.codehasan.quicksettings.util.RootUtil.isRootAvailable;
 import static io.github.codehasan.quicksettings.util.RootUtil.isRootGranted;
 import static io.github.codehasan.quicksettings.util.RootUtil.setRootGranted;
 
-import android.Manifest;
-import android.content.ComponentName;
 import android.content.Intent;
-import android.content.pm.PackageInfo;
-import android.content.pm.PackageManager;
-import android.content.pm.ServiceInfo;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -39,22 +32,36 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import io.github.codehasan.quicksettings.R;
-import io.github.codehasan.quicksettings.annotations.MinSdk;
+import io.github.codehasan.quicksettings.state.CapabilityRegistry;
+import io.github.codehasan.quicksettings.state.ComponentToggler;
+import io.github.codehasan.quicksettings.state.ScreenshotSettings;
+import io.github.codehasan.quicksettings.state.TileCatalog;
 import io.github.codehasan.quicksettings.ui.adapter.ServiceAdapter;
 import io.github.codehasan.quicksettings.ui.model.ServiceItem;
+import io.github.codehasan.quicksettings.ui.model.ServiceSearchIndex;
+import io.github.codehasan.quicksettings.util.TaskScheduler;
 
 public class MainActivity extends AppCompatActivity {
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Roughly one screen of rows while the catalog loads
+    private static final int PLACEHOLDER_COUNT = 8;
+
+    private final TaskScheduler.Scope executor =
+            TaskScheduler.getInstance().newScope("MainActivity");
+    // Separate from executor, so searching never waits behind the catalog load
+    private final TaskScheduler.Scope searchExecutor =
+            TaskScheduler.getInstance().newScope("MainActivity.search");
     private final Handler handler = new Handler(Looper.getMainLooper());
 
+    private CapabilityRegistry capabilities;
+    private ComponentToggler toggler;
     private MaterialToolbar toolbar;
     private MaterialButton btnRoot;
     private MaterialButton btnWriteSettings;
     private ServiceAdapter adapter;
+    // Every tile once the catalog has loaded, regardless of the search
+    private List<ServiceItem> services = new ArrayList<>();
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -67,21 +74,25 @@ public class MainActivity extends AppCompatActivity {
             return insets;
         });
 
+        capabilities = CapabilityRegistry.getInstance(this);
+        toggler = ComponentToggler.getInstance(this);
         btnRoot = findViewById(R.id.btn_root);
         btnWriteSettings = findViewById(R.id.btn_write_settings);
 
         RecyclerView recyclerView = findViewById(R.id.services);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
 
-        adapter = new ServiceAdapter(getServices());
+        adapter = new ServiceAdapter(createPlaceholders(), searchExecutor,
+                this::setServiceEnabled);
         recyclerView.setAdapter(adapter);
+        loadServices();
 
         toolbar = findViewById(R.id.toolbar);
         setupToolbarActions();
 
         btnRoot.setOnClickListener(v -> {
-            executor.execute(() -> {
-                if (isRootAvailable()) {
+            capabilities.refreshRoot().thenAcceptAsync(granted -> {
+                if (granted) {
                     setRootGranted(this, true);
                     handler.post(() -> setPermissionGrantStatus(btnRoot, true));
                 } else {
@@ -94,11 +105,11 @@ public class MainActivity extends AppCompatActivity {
                                 Toast.LENGTH_SHORT).show();
                     });
                 }
-            });
+            }, executor);
         });
 
         btnWriteSettings.setOnClickListener(v -> {
-            if (hasSecureSettingsPermission()) {
+            if (capabilities.hasSecureSettings()) {
                 onResume();
             } else {
                 showWriteSettingsGuide();
@@ -106,12 +117,20 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        executor.close();
+        searchExecutor.close();
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
+        capabilities.refreshPermissions();
 
         setPermissionGrantStatus(btnRoot, isRootGranted(this));
-        setPermissionGrantStatus(btnWriteSettings, hasSecureSettingsPermission());
+        setPermissionGrantStatus(btnWriteSettings, capabilities.hasSecureSettings());
     }
 
     private void setPermissionGrantStatus(MaterialButton button, boolean grantStatus) {
@@ -128,9 +147,20 @@ public class MainActivity extends AppCompatActivity {
         toolbar.setOnMenuItemClickListener(item -> {
             if (item.getItemId() == R.id.github) {
                 startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(GITHUB_REPO)));
+            } else if (item.getItemId() == R.id.diagnostics) {
+                startActivity(new Intent(this, DiagnosticsActivity.class));
+            } else if (item.getItemId() == R.id.enable_all) {
+                setAllServicesEnabled(true);
+            } else if (item.getItemId() == R.id.disable_all) {
+                setAllServicesEnabled(false);
+            } else if (item.getItemId() == R.id.screenshot_format) {
+                showScreenshotFormats();
             }
             return true;
         });
+        // Capturing without the system screenshot needs API 30
+        toolbar.getMenu().findItem(R.id.screenshot_format)
+                .setVisible(Build.VERSION.SDK_INT >= Build.VERSION_CODES.R);
 
         MenuItem searchItem = toolbar.getMenu().findItem(R.id.action_search);
         SearchView searchView = (SearchView) searchItem.getActionView();
@@ -146,7 +176,7 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public boolean onQueryTextChange(String newText) {
                 if (adapter != null) {
-                    adapter.getFilter().filter(newText);
+                    adapter.search(newText);
                 }
                 return true;
             }
@@ -165,55 +195,80 @@ public class MainActivity extends AppCompatActivity {
                 .show();
     }
 
-    private List<ServiceItem> getServices() {
-        PackageManager pm = getPackageManager();
-        List<ServiceItem> serviceItems = new ArrayList<>();
-        ServiceInfo[] services = null;
+    private void showScreenshotFormats() {
+        ScreenshotSettings settings = ScreenshotSettings.getInstance(this);
+        new MaterialAlertDialogBuilder(this)
+                .setTitle(R.string.screenshot_format)
+                .setSingleChoiceItems(R.array.screenshot_formats,
+                        settings.getFormat().ordinal(), (dialog, which) -> {
+                            settings.setFormat(ScreenshotSettings.Format.values()[which]);
+                            dialog.dismiss();
+                        })
+                .show();
+    }
 
-        try {
-            PackageInfo pi = pm.getPackageInfo(getPackageName(),
-                    GET_SERVICES | MATCH_DISABLED_COMPONENTS);
-            services = pi.services;
-        } catch (PackageManager.NameNotFoundException ignored) {
+    private List<ServiceItem> createPlaceholders() {
+        List<ServiceItem> placeholders = new ArrayList<>(PLACEHOLDER_COUNT);
+        for (int i = 0; i < PLACEHOLDER_COUNT; i++) {
+            placeholders.add(ServiceItem.placeholder());
         }
+        return placeholders;
+    }
 
-        if (isNullOrEmpty(services)) return serviceItems;
-
-        for (ServiceInfo service : services) {
-            if (!service.permission.equals("android.permission.BIND_QUICK_SETTINGS_TILE"))
-                continue;
+    /**
+     * Shows the catalog as soon as it is read, then fills in each switch as its enabled
+     * state arrives, so the list appears before every tile has been queried.
+     */
+    private void loadServices() {
+        executor.execute(() -> {
+            TileCatalog catalog = TileCatalog.getInstance(this);
+            List<ServiceItem> items = catalog.load();
+            ServiceSearchIndex index = ServiceSearchIndex.build(items);
+            handler.post(() -> {
+                services = index.getItems();
+                adapter.setIndex(index);
+            });
 
-            ServiceItem serviceItem = new ServiceItem();
-
-            serviceItem.component = new ComponentName(service.packageName, service.name);
-            serviceItem.title = getString(service.labelRes);
-            serviceItem.description = getString(service.descriptionRes);
-            serviceItem.icon = service.icon;
-
-            int state = pm.getComponentEnabledSetting(serviceItem.component);
-            boolean isExplicitlyEnabled = state == PackageManager.COMPONENT_ENABLED_STATE_ENABLED;
-            boolean isDefaultAndManifestEnabled = (state == PackageManager.COMPONENT_ENABLED_STATE_DEFAULT) && service.enabled;
-            serviceItem.enabled = isExplicitlyEnabled || isDefaultAndManifestEnabled;
-
-            if (!service.enabled) {
-                serviceItem.reason = getString(R.string.not_supported);
-                try {
-                    Class<?> serviceClass = Class.forName(service.name);
-                    if (serviceClass.isAnnotationPresent(MinSdk.class)) {
-                        MinSdk annotation = serviceClass.getAnnotation(MinSdk.class);
-                        serviceItem.reason = getString(R.string.not_supported_below_api, annotation.value());
-                    }
-                } catch (Exception ignored) {
-                }
+            for (ServiceItem item : items) {
+                boolean enabled = catalog.loadEnabledState(item);
+                handler.post(() -> {
+                    item.enabled = enabled;
+                    item.stateLoaded = true;
+                    adapter.notifyItemChanged(item);
+                });
             }
+        });
+    }
 
-            serviceItems.add(serviceItem);
-        }
-        return serviceItems;
+    /**
+     * Shows the new state right away and rolls it back if the change could not be
+     * written.
+     */
+    private void setServiceEnabled(ServiceItem item, boolean enabled) {
+        item.enabled = enabled;
+        toggler.request(item.component, enabled, (component, success) -> {
+            if (success) return;
+
+            Toast.makeText(this, getString(R.string.toggle_failed, item.title),
+                    Toast.LENGTH_SHORT).show();
+            executor.execute(() -> {
+                boolean actual = TileCatalog.getInstance(this).loadEnabledState(item);
+                handler.post(() -> {
+                    item.enabled = actual;
+                    adapter.notifyItemChanged(item);
+                });
+            });
+        });
     }
 
-    private boolean hasSecureSettingsPermission() {
-        return checkSelfPermission(Manifest.permission.WRITE_SECURE_SETTINGS)
-                == PackageManager.PERMISSION_GRANTED;
+    private void setAllServicesEnabled(boolean enabled) {
+        for (ServiceItem item : services) {
+            // Same rule as the switch, unsupported tiles and unknown states are left alone
+            if (!item.stateLoaded || !isNullOrEmpty(item.reason) || item.enabled == enabled) {
+                continue;
+            }
+            setServiceEnabled(item, enabled);
+            adapter.notifyItemChanged(item);
+        }
     }
 }
@@ -24,6 +24,7 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
 import io.github.codehasan.quicksettings.R;
+import io.github.codehasan.quicksettings.state.CapabilityRegistry;
 
 public class PermissionActivity extends AppCompatActivity {
     public static final String EXTRA_PERMISSIONS = "permissions";
@@ -50,6 +51,8 @@ public class PermissionActivity extends AppCompatActivity {
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        CapabilityRegistry.getInstance(this).refreshPermissions();
+
         for (int i = 0, len = permissions.length; i < len; i++) {
             String permission = permissions[i];
 
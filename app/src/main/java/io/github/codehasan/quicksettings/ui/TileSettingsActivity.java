@@ -21,41 +21,23 @@ import android.util.Log;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.util.Set;
-
-import io.github.codehasan.quicksettings.services.tile.BluetoothService;
-import io.github.codehasan.quicksettings.services.tile.LockScreenService;
-import io.github.codehasan.quicksettings.services.tile.PlayProtectService;
-import io.github.codehasan.quicksettings.services.tile.PowerMenuService;
-import io.github.codehasan.quicksettings.services.tile.ScreenshotService;
-import io.github.codehasan.quicksettings.services.tile.VolumeService;
+import io.github.codehasan.quicksettings.state.TileRegistry;
 
 public class TileSettingsActivity extends AppCompatActivity {
     public static final String TAG = "TileSettingsActivity";
-    public static final Set<String> accessibilityClasses = Set.of(
-            LockScreenService.class.getName(),
-            PowerMenuService.class.getName(),
-            ScreenshotService.class.getName()
-    );
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        String launcher = getLauncherClass();
+        int index = TileRegistry.indexOf(getLauncherClass());
+        String component = index < 0 ? null : TileRegistry.settingsComponent(index);
+        String action = index < 0 ? null : TileRegistry.settingsAction(index);
 
-        if (launcher.equals(BluetoothService.class.getName())) {
-            startActivity(new Intent(Settings.ACTION_BLUETOOTH_SETTINGS));
-        } else if (launcher.equals(VolumeService.class.getName())) {
-            startActivity(new Intent(Settings.ACTION_SOUND_SETTINGS));
-        } else if (launcher.equals(PlayProtectService.class.getName())) {
-            Intent playProtect = new Intent();
-            playProtect.setClassName(
-                    "com.google.android.gms",
-                    "com.google.android.gms.security.settings.VerifyAppsSettingsActivity");
-            startActivity(playProtect);
-        } else if (accessibilityClasses.contains(launcher)) {
-            startActivity(new Intent(Settings.ACTION_ACCESSIBILITY_SETTINGS));
+        if (component != null) {
+            startActivity(new Intent().setComponent(ComponentName.unflattenFromString(component)));
+        } else if (action != null) {
+            startActivity(new Intent(action));
         } else {
             startActivity(new Intent(Settings.ACTION_APPLICATION_DETAILS_SETTINGS)
                     .setData(Uri.parse("package:" + getPackageName())));
@@ -2,14 +2,16 @@ package io.github.codehasan.quicksettings.ui.adapter;
 
 import static io.github.codehasan.quicksettings.util.NullSafety.isNullOrEmpty;
 
-import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Filter;
-import android.widget.Filterable;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.imageview.ShapeableImageView;
@@ -18,18 +20,112 @@ import com.google.android.material.textview.MaterialTextView;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.github.codehasan.quicksettings.R;
 import io.github.codehasan.quicksettings.ui.model.ServiceItem;
+import io.github.codehasan.quicksettings.ui.model.ServiceSearchIndex;
+
+public class ServiceAdapter extends RecyclerView.Adapter<ServiceAdapter.ServiceViewHolder> {
+    // Long enough to skip the intermediate queries of a quickly typed word
+    private static final long SEARCH_DEBOUNCE_MS = 100;
+    // Rebinds only the switch of a row, after its enabled state was read
+    private static final Object PAYLOAD_STATE = new Object();
+
+    private static final DiffUtil.ItemCallback<ServiceItem> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<ServiceItem>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull ServiceItem oldItem,
+                                               @NonNull ServiceItem newItem) {
+                    if (oldItem.isPlaceholder() || newItem.isPlaceholder()) {
+                        return oldItem == newItem;
+                    }
+                    return oldItem.component.equals(newItem.component);
+                }
 
-public class ServiceAdapter extends RecyclerView.Adapter<ServiceAdapter.ServiceViewHolder> implements Filterable {
+                @Override
+                public boolean areContentsTheSame(@NonNull ServiceItem oldItem,
+                                                  @NonNull ServiceItem newItem) {
+                    // State changes of the same item are announced with notifyItemChanged
+                    return oldItem == newItem;
+                }
+            };
+
+    private final AsyncListDiffer<ServiceItem> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Executor searchExecutor;
+    private final OnToggleListener toggleListener;
+    // Bumped by every keystroke, a query whose number is outdated stops or is dropped
+    private final AtomicInteger searchGeneration = new AtomicInteger();
+    private final Runnable searchRunnable = this::runSearch;
+    private ServiceSearchIndex index;
+    private String query = "";
+
+    /**
+     * @param list           rows shown until {@link #setIndex(ServiceSearchIndex)}
+     * @param searchExecutor runs the queries, one at a time
+     * @param toggleListener applies the switch flips
+     */
+    public ServiceAdapter(@NonNull List<ServiceItem> list, @NonNull Executor searchExecutor,
+                          @NonNull OnToggleListener toggleListener) {
+        this.searchExecutor = searchExecutor;
+        this.toggleListener = toggleListener;
+        setHasStableIds(true);
+        differ.submitList(new ArrayList<>(list));
+    }
 
-    private final List<ServiceItem> masterList;
-    private final List<ServiceItem> filteredList;
+    /**
+     * Replaces every item with those of the index, keeping the current search applied.
+     */
+    public void setIndex(@NonNull ServiceSearchIndex index) {
+        this.index = index;
+        handler.removeCallbacks(searchRunnable);
+        runSearch();
+    }
 
-    public ServiceAdapter(List<ServiceItem> list) {
-        this.masterList = list;
-        this.filteredList = new ArrayList<>(list);
+    /**
+     * Shows the items matching the query once typing pauses, a blank query right away.
+     */
+    public void search(@Nullable CharSequence query) {
+        this.query = query == null ? "" : query.toString();
+        // Stops a query that is still running for the previous text
+        searchGeneration.incrementAndGet();
+
+        handler.removeCallbacks(searchRunnable);
+        if (this.query.trim().isEmpty()) {
+            runSearch();
+        } else {
+            handler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+        }
+    }
+
+    private void runSearch() {
+        ServiceSearchIndex index = this.index;
+        // The placeholders stay until the catalog has loaded
+        if (index == null) return;
+
+        String query = this.query;
+        int generation = searchGeneration.incrementAndGet();
+        searchExecutor.execute(() -> {
+            List<ServiceItem> results = index.query(query,
+                    () -> searchGeneration.get() != generation);
+            if (results == null) return;
+
+            handler.post(() -> {
+                // Diffed on a background thread, only rows that came or went are touched
+                if (searchGeneration.get() == generation) differ.submitList(results);
+            });
+        });
+    }
+
+    /**
+     * Rebinds the switch of the row showing the item, if it is visible under the
+     * current search.
+     */
+    public void notifyItemChanged(@NonNull ServiceItem item) {
+        int position = differ.getCurrentList().indexOf(item);
+        if (position >= 0) notifyItemChanged(position, PAYLOAD_STATE);
     }
 
     @NonNull
@@ -40,9 +136,25 @@ public class ServiceAdapter extends RecyclerView.Adapter<ServiceAdapter.ServiceV
         return new ServiceViewHolder(view);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ServiceViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        ServiceItem item = differ.getCurrentList().get(position);
+        if (payloads.contains(PAYLOAD_STATE) && !item.isPlaceholder()) {
+            bindSwitch(holder, item);
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
     @Override
     public void onBindViewHolder(@NonNull ServiceViewHolder holder, int position) {
-        ServiceItem item = filteredList.get(position);
+        ServiceItem item = differ.getCurrentList().get(position);
+
+        if (item.isPlaceholder()) {
+            bindPlaceholder(holder);
+            return;
+        }
 
         if (!isNullOrEmpty(item.reason)) {
             holder.tvReason.setText(item.reason);
@@ -53,61 +165,56 @@ public class ServiceAdapter extends RecyclerView.Adapter<ServiceAdapter.ServiceV
         holder.ivIcon.setImageResource(item.icon);
         holder.tvTitle.setText(item.title);
         holder.tvDescription.setText(item.description);
+        bindSwitch(holder, item);
+    }
 
+    private void bindSwitch(ServiceViewHolder holder, ServiceItem item) {
         // Remove listener temporarily to avoid triggering it during recycling
         holder.switchService.setOnCheckedChangeListener(null);
         holder.switchService.setChecked(item.enabled);
-        holder.switchService.setEnabled(isNullOrEmpty(item.reason));
-        holder.switchService.setOnCheckedChangeListener((buttonView, isChecked) -> {
-            PackageManager pm = buttonView.getContext().getPackageManager();
-            int newState = isChecked ?
-                    PackageManager.COMPONENT_ENABLED_STATE_ENABLED :
-                    PackageManager.COMPONENT_ENABLED_STATE_DISABLED;
-            pm.setComponentEnabledSetting(
-                    item.component,
-                    newState,
-                    PackageManager.DONT_KILL_APP);
-            item.enabled = isChecked;
-        });
+        holder.switchService.setEnabled(item.stateLoaded && isNullOrEmpty(item.reason));
+        holder.switchService.setOnCheckedChangeListener((buttonView, isChecked) ->
+                toggleListener.onToggle(item, isChecked));
+    }
+
+    private void bindPlaceholder(ServiceViewHolder holder) {
+        holder.tvReason.setVisibility(View.GONE);
+        holder.ivIcon.setImageDrawable(null);
+        holder.tvTitle.setText(null);
+        holder.tvDescription.setText(null);
+        holder.switchService.setOnCheckedChangeListener(null);
+        holder.switchService.setChecked(false);
+        holder.switchService.setEnabled(false);
     }
 
     @Override
     public int getItemCount() {
-        return filteredList.size();
+        return differ.getCurrentList().size();
     }
 
     @Override
-    public Filter getFilter() {
-        return new Filter() {
-            @Override
-            protected FilterResults performFiltering(CharSequence constraint) {
-                List<ServiceItem> resultsList = new ArrayList<>();
-
-                if (isNullOrEmpty(constraint)) {
-                    resultsList.addAll(masterList);
-                } else {
-                    String filterPattern = constraint.toString().toLowerCase().trim();
-
-                    for (ServiceItem item : masterList) {
-                        if (item.title.toLowerCase().contains(filterPattern) ||
-                                item.description.toLowerCase().contains(filterPattern)) {
-                            resultsList.add(item);
-                        }
-                    }
-                }
+    public long getItemId(int position) {
+        ServiceItem item = differ.getCurrentList().get(position);
+        // Placeholders are only ever replaced as a whole, their position is stable enough
+        return item.isPlaceholder() ? -1 - position : stableIdOf(item);
+    }
+
+    /**
+     * 64-bit FNV-1a of the class name, the package is the same for every tile.
+     */
+    private static long stableIdOf(ServiceItem item) {
+        String className = item.component.getClassName();
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < className.length(); i++) {
+            hash ^= className.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Keeps ids of real items clear of the negative placeholder ids
+        return hash & Long.MAX_VALUE;
+    }
 
-                FilterResults results = new FilterResults();
-                results.values = resultsList;
-                return results;
-            }
-
-            @Override
-            protected void publishResults(CharSequence constraint, FilterResults results) {
-                filteredList.clear();
-                filteredList.addAll((List) results.values);
-                notifyDataSetChanged();
-            }
-        };
+    public interface OnToggleListener {
+        void onToggle(@NonNull ServiceItem item, boolean enabled);
     }
 
     public static class ServiceViewHolder extends RecyclerView.ViewHolder {
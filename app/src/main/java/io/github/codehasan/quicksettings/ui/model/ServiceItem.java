@@ -7,6 +7,23 @@ public class ServiceItem {
     public String reason;
     public String title;
     public String description;
+    public int titleRes;
+    public int descriptionRes;
     public int icon;
+    public int minSdk;
+    public boolean enabledByDefault;
     public boolean enabled;
-}
\ No newline at end of file
+    // Whether enabled has been read from the package manager yet
+    public boolean stateLoaded;
+
+    /**
+     * @return an empty row shown while the catalog loads
+     */
+    public static ServiceItem placeholder() {
+        return new ServiceItem();
+    }
+
+    public boolean isPlaceholder() {
+        return component == null;
+    }
+}
@@ -0,0 +1,318 @@
+package io.github.codehasan.quicksettings.ui.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Search over the titles and descriptions of the tile list, built once per catalog.
+ * <p>
+ * Text is lowercased, stripped of accents and split into words. Every word of a query
+ * has to match a word of the item, by prefix, by substring through a trigram index, or
+ * when neither finds anything, within one edit (two for long words) of a word's prefix.
+ * Queries reuse scratch arrays owned by the index, so a keystroke allocates little
+ * beyond the result list.
+ */
+public class ServiceSearchIndex {
+    private static final int NGRAM_LENGTH = 3;
+    private static final int MIN_TYPO_LENGTH = 4;
+    private static final int MIN_TWO_TYPO_LENGTH = 8;
+    // How many words are compared between checks for a newer query
+    private static final int CANCEL_CHECK_INTERVAL = 64;
+
+    private final List<ServiceItem> items;
+    // Sorted, so a prefix is a contiguous range
+    private final String[] words;
+    // Item indices containing each word, ascending
+    private final int[][] wordItems;
+    // Sorted trigram keys and the words containing each
+    private final long[] ngrams;
+    private final int[][] ngramWords;
+
+    // Scratch for queries, guarded by this
+    private final int[] itemHits;
+    private final int[] itemLastTerm;
+    private int[] previousRow;
+    private int[] row;
+    private int[] nextRow;
+    private int termSerial;
+
+    private ServiceSearchIndex(List<ServiceItem> items, String[] words, int[][] wordItems,
+                               long[] ngrams, int[][] ngramWords, int maxWordLength) {
+        this.items = items;
+        this.words = words;
+        this.wordItems = wordItems;
+        this.ngrams = ngrams;
+        this.ngramWords = ngramWords;
+
+        itemHits = new int[items.size()];
+        itemLastTerm = new int[items.size()];
+        previousRow = new int[maxWordLength + 1];
+        row = new int[maxWordLength + 1];
+        nextRow = new int[maxWordLength + 1];
+    }
+
+    /**
+     * Indexes the items, placeholders are left out.
+     */
+    @NonNull
+    public static ServiceSearchIndex build(@NonNull List<ServiceItem> items) {
+        List<ServiceItem> indexed = new ArrayList<>(items.size());
+        Map<String, List<Integer>> wordMap = new TreeMap<>();
+
+        for (ServiceItem item : items) {
+            if (item.isPlaceholder()) continue;
+
+            int index = indexed.size();
+            indexed.add(item);
+            String text = normalize(item.title + " " + item.description);
+            for (String word : text.split(" ")) {
+                if (word.isEmpty()) continue;
+
+                List<Integer> postings = wordMap.get(word);
+                if (postings == null) {
+                    postings = new ArrayList<>();
+                    wordMap.put(word, postings);
+                }
+                if (postings.isEmpty() || postings.get(postings.size() - 1) != index) {
+                    postings.add(index);
+                }
+            }
+        }
+
+        String[] words = wordMap.keySet().toArray(new String[0]);
+        int[][] wordItems = new int[words.length][];
+        Map<Long, List<Integer>> ngramMap = new TreeMap<>();
+        int maxWordLength = 0;
+
+        for (int w = 0; w < words.length; w++) {
+            wordItems[w] = toArray(wordMap.get(words[w]));
+            maxWordLength = Math.max(maxWordLength, words[w].length());
+
+            for (int i = 0; i + NGRAM_LENGTH <= words[w].length(); i++) {
+                long key = ngramKey(words[w], i);
+                List<Integer> postings = ngramMap.get(key);
+                if (postings == null) {
+                    postings = new ArrayList<>();
+                    ngramMap.put(key, postings);
+                }
+                if (postings.isEmpty() || postings.get(postings.size() - 1) != w) {
+                    postings.add(w);
+                }
+            }
+        }
+
+        long[] ngrams = new long[ngramMap.size()];
+        int[][] ngramWords = new int[ngramMap.size()][];
+        int n = 0;
+        for (Map.Entry<Long, List<Integer>> entry : ngramMap.entrySet()) {
+            ngrams[n] = entry.getKey();
+            ngramWords[n] = toArray(entry.getValue());
+            n++;
+        }
+
+        return new ServiceSearchIndex(Collections.unmodifiableList(indexed), words, wordItems,
+                ngrams, ngramWords, maxWordLength);
+    }
+
+    /**
+     * @return every indexed item, in catalog order
+     */
+    @NonNull
+    public List<ServiceItem> getItems() {
+        return items;
+    }
+
+    /**
+     * @param cancelled polled while matching, a query that was superseded stops early
+     * @return the matching items in catalog order, every item for a blank query, or
+     * {@code null} if the query was cancelled
+     */
+    @Nullable
+    public synchronized List<ServiceItem> query(@Nullable CharSequence query,
+                                                @NonNull BooleanSupplier cancelled) {
+        String text = query == null ? "" : normalize(query);
+        Arrays.fill(itemHits, 0);
+
+        int termCount = 0;
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf(' ', start);
+            if (end < 0) end = text.length();
+
+            if (end > start) {
+                if (cancelled.getAsBoolean()) return null;
+                termCount++;
+                if (!matchTerm(text.substring(start, end), cancelled)) {
+                    // A term without any match leaves nothing to show
+                    return cancelled.getAsBoolean() ? null : new ArrayList<>();
+                }
+            }
+            start = end + 1;
+        }
+
+        if (termCount == 0) return new ArrayList<>(items);
+
+        List<ServiceItem> results = new ArrayList<>();
+        for (int i = 0; i < itemHits.length; i++) {
+            if (itemHits[i] == termCount) results.add(items.get(i));
+        }
+        return results;
+    }
+
+    private boolean matchTerm(String term, BooleanSupplier cancelled) {
+        int termId = ++termSerial;
+        boolean matched = matchPrefix(term, termId);
+        if (term.length() >= NGRAM_LENGTH) {
+            matched |= matchSubstring(term, termId);
+        }
+        if (!matched && term.length() >= MIN_TYPO_LENGTH) {
+            matched = matchTypos(term, termId, cancelled);
+        }
+        return matched;
+    }
+
+    private boolean matchPrefix(String term, int termId) {
+        int index = Arrays.binarySearch(words, term);
+        if (index < 0) index = -index - 1;
+
+        boolean matched = false;
+        for (; index < words.length && words[index].startsWith(term); index++) {
+            markWord(index, termId);
+            matched = true;
+        }
+        return matched;
+    }
+
+    /**
+     * Verifies the words sharing the rarest trigram of the term.
+     */
+    private boolean matchSubstring(String term, int termId) {
+        int[] candidates = null;
+        for (int i = 0; i + NGRAM_LENGTH <= term.length(); i++) {
+            int index = Arrays.binarySearch(ngrams, ngramKey(term, i));
+            if (index < 0) return false;
+            if (candidates == null || ngramWords[index].length < candidates.length) {
+                candidates = ngramWords[index];
+            }
+        }
+
+        boolean matched = false;
+        for (int word : candidates) {
+            if (words[word].contains(term)) {
+                markWord(word, termId);
+                matched = true;
+            }
+        }
+        return matched;
+    }
+
+    private boolean matchTypos(String term, int termId, BooleanSupplier cancelled) {
+        int maxEdits = term.length() >= MIN_TWO_TYPO_LENGTH ? 2 : 1;
+        boolean matched = false;
+
+        for (int w = 0; w < words.length; w++) {
+            if (w % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) return false;
+            if (words[w].length() < term.length() - maxEdits) continue;
+
+            if (prefixDistance(term, words[w], maxEdits) <= maxEdits) {
+                markWord(w, termId);
+                matched = true;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Optimal string alignment distance between the term and the closest prefix of the
+     * word, giving up once it exceeds {@code maxEdits}.
+     */
+    private int prefixDistance(String term, String word, int maxEdits) {
+        int columns = Math.min(word.length(), term.length() + maxEdits);
+        for (int j = 0; j <= columns; j++) row[j] = j;
+
+        for (int i = 1; i <= term.length(); i++) {
+            nextRow[0] = i;
+            int rowMin = i;
+            char termChar = term.charAt(i - 1);
+
+            for (int j = 1; j <= columns; j++) {
+                char wordChar = word.charAt(j - 1);
+                int cost = termChar == wordChar ? 0 : 1;
+                int distance = Math.min(Math.min(nextRow[j - 1] + 1, row[j] + 1),
+                        row[j - 1] + cost);
+                if (i > 1 && j > 1 && termChar == word.charAt(j - 2)
+                        && term.charAt(i - 2) == wordChar) {
+                    distance = Math.min(distance, previousRow[j - 2] + 1);
+                }
+                nextRow[j] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+            if (rowMin > maxEdits) return rowMin;
+
+            int[] recycled = previousRow;
+            previousRow = row;
+            row = nextRow;
+            nextRow = recycled;
+        }
+
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j <= columns; j++) best = Math.min(best, row[j]);
+        return best;
+    }
+
+    /**
+     * Counts the term once for every item containing the word.
+     */
+    private void markWord(int word, int termId) {
+        for (int item : wordItems[word]) {
+            if (itemLastTerm[item] != termId) {
+                itemLastTerm[item] = termId;
+                itemHits[item]++;
+            }
+        }
+    }
+
+    /**
+     * @return the text lowercased, without accents and with everything but letters and
+     * digits turned into spaces
+     */
+    @NonNull
+    static String normalize(@NonNull CharSequence text) {
+        String value = text.toString();
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7f) {
+                value = Normalizer.normalize(value, Normalizer.Form.NFD);
+                break;
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            builder.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ');
+        }
+        return builder.toString();
+    }
+
+    private static long ngramKey(String word, int start) {
+        return (long) word.charAt(start) << 32
+                | (long) word.charAt(start + 1) << 16
+                | word.charAt(start + 2);
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) array[i] = values.get(i);
+        return array;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.util;
+
+import android.net.ConnectivityManager;
+import android.net.wifi.WifiConfiguration;
+import android.net.wifi.WifiManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Access to hidden WiFi and tethering APIs.
+ * <p>
+ * Every member is looked up once per process and kept, including failed lookups, so
+ * devices that do not have a member stop paying for the lookup and its exception.
+ */
+public class HiddenApi {
+    public static final String TAG = "HiddenApi";
+
+    private static final HiddenMethod GET_WIFI_AP_STATE =
+            new HiddenMethod(WifiManager.class, "getWifiApState");
+    private static final HiddenMethod SET_WIFI_AP_ENABLED =
+            new HiddenMethod(WifiManager.class, "setWifiApEnabled",
+                    WifiConfiguration.class, boolean.class);
+    private static final HiddenMethod STOP_TETHERING =
+            new HiddenMethod(ConnectivityManager.class, "stopTethering", int.class);
+
+    /**
+     * @return the soft AP state reported by {@code WifiManager#getWifiApState()}, or
+     * {@code fallback} if it is not available
+     */
+    public static int getWifiApState(@NonNull WifiManager wifiManager, int fallback) {
+        Object state = GET_WIFI_AP_STATE.invoke(wifiManager);
+        return state instanceof Integer ? (int) state : fallback;
+    }
+
+    /**
+     * Android API 26-28
+     */
+    public static boolean stopTethering(@NonNull ConnectivityManager connectivityManager, int type) {
+        return STOP_TETHERING.invokeVoid(connectivityManager, type);
+    }
+
+    public static boolean setWifiApEnabled(@NonNull WifiManager wifiManager, boolean enabled) {
+        return SET_WIFI_AP_ENABLED.invokeVoid(wifiManager, null, enabled);
+    }
+
+    private static class HiddenMethod {
+        private final Class<?> owner;
+        private final String name;
+        private final Class<?>[] parameterTypes;
+
+        @Nullable
+        private Method method;
+        private boolean resolved;
+
+        HiddenMethod(Class<?> owner, String name, Class<?>... parameterTypes) {
+            this.owner = owner;
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+        }
+
+        @Nullable
+        private synchronized Method resolve() {
+            if (resolved) return method;
+            resolved = true;
+
+            try {
+                Method found = owner.getDeclaredMethod(name, parameterTypes);
+                found.setAccessible(true);
+                method = found;
+            } catch (Exception e) {
+                Log.w(TAG, owner.getSimpleName() + "#" + name + " is not available", e);
+            }
+            return method;
+        }
+
+        private synchronized void markUnsupported() {
+            method = null;
+        }
+
+        @Nullable
+        Object invoke(Object target, Object... args) {
+            Method resolved = resolve();
+            if (resolved == null) return null;
+
+            try {
+                return resolved.invoke(target, args);
+            } catch (IllegalAccessException e) {
+                // Blocked by hidden API restrictions, no point in trying again
+                Log.w(TAG, owner.getSimpleName() + "#" + name + " is blocked", e);
+                markUnsupported();
+            } catch (InvocationTargetException e) {
+                Log.e(TAG, owner.getSimpleName() + "#" + name + " failed", e.getCause());
+            }
+            return null;
+        }
+
+        /**
+         * @return {@code true} if the method exists and returned normally
+         */
+        boolean invokeVoid(Object target, Object... args) {
+            Method resolved = resolve();
+            if (resolved == null) return false;
+
+            try {
+                resolved.invoke(target, args);
+                return true;
+            } catch (IllegalAccessException e) {
+                Log.w(TAG, owner.getSimpleName() + "#" + name + " is blocked", e);
+                markUnsupported();
+            } catch (InvocationTargetException e) {
+                Log.e(TAG, owner.getSimpleName() + "#" + name + " failed", e.getCause());
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.util;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory click-to-effect latency histograms, one per tile and path.
+ * <p>
+ * A {@link Span} is started when a tile is tapped and ended once the effect has been
+ * observed, e.g. a root command finished or the screen turned off. Nothing is
+ * persisted, the numbers cover the current process only.
+ */
+public class LatencyTracker {
+    public static final String PATH_ROOT = "root";
+    public static final String PATH_SECURE_SETTINGS = "secure-settings";
+    public static final String PATH_ACCESSIBILITY = "accessibility";
+    public static final String PATH_DIRECT = "direct";
+
+    private static final AtomicInteger nextSpanId = new AtomicInteger();
+    private static LatencyTracker instance;
+
+    // Sorted so the diagnostics screen lists tiles in a stable order
+    private final Map<String, Histogram> histograms = new TreeMap<>();
+    // Spans waiting for an effect observed somewhere else in the process
+    private final Map<String, Span> pendingSpans = new HashMap<>();
+
+    private LatencyTracker() {
+    }
+
+    @NonNull
+    public static synchronized LatencyTracker getInstance() {
+        if (instance == null) {
+            instance = new LatencyTracker();
+        }
+        return instance;
+    }
+
+    @NonNull
+    public Span start(@NonNull String tile, @NonNull String path) {
+        return new Span(tile + " / " + path);
+    }
+
+    /**
+     * Parks a span until {@link #endPending(String)} is called with the same key, for
+     * effects that happen in another component such as GlobalActionService. A span
+     * already parked under the key is dropped.
+     */
+    public void putPending(@NonNull String key, @NonNull Span span) {
+        Span replaced;
+        synchronized (this) {
+            replaced = pendingSpans.put(key, span);
+        }
+        if (replaced != null) replaced.cancel();
+    }
+
+    public void endPending(@NonNull String key) {
+        Span span = takePending(key);
+        if (span != null) span.end();
+    }
+
+    /**
+     * Removes a parked span, for a component that ends it later itself.
+     */
+    @Nullable
+    public synchronized Span takePending(@NonNull String key) {
+        return pendingSpans.remove(key);
+    }
+
+    public synchronized void record(@NonNull String name, long millis) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram();
+            histograms.put(name, histogram);
+        }
+        histogram.add(millis);
+    }
+
+    /**
+     * @return one line per tile and path with its count and percentiles
+     */
+    @NonNull
+    public synchronized List<String> describe() {
+        List<String> lines = new ArrayList<>(histograms.size());
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            lines.add(entry.getKey() + "\n" +
+                    "  n=" + histogram.count +
+                    "  p50=" + histogram.percentile(0.50) + "ms" +
+                    "  p90=" + histogram.percentile(0.90) + "ms" +
+                    "  p99=" + histogram.percentile(0.99) + "ms" +
+                    "  max=" + histogram.max + "ms");
+        }
+        return lines;
+    }
+
+    public class Span {
+        private final String name;
+        private final int id = nextSpanId.incrementAndGet();
+        private final long startNanos = System.nanoTime();
+        private boolean ended;
+
+        private Span(String name) {
+            this.name = name;
+            // Shows the whole tap in a trace, up to the observed effect
+            TraceUtil.beginAsyncSection(name, id);
+        }
+
+        /**
+         * Records the time since the tap. Only the first call counts.
+         */
+        public void end() {
+            long millis = (System.nanoTime() - startNanos) / 1_000_000;
+            synchronized (this) {
+                if (ended) return;
+                ended = true;
+            }
+            TraceUtil.endAsyncSection(name, id);
+            record(name, millis);
+        }
+
+        /**
+         * Ends the span when the given broadcast arrives, or drops it after
+         * {@code timeoutMillis} if it never does.
+         */
+        public void endOnBroadcast(@NonNull Context context, @NonNull String action,
+                                   long timeoutMillis) {
+            Context appContext = context.getApplicationContext();
+            Handler handler = new Handler(Looper.getMainLooper());
+            BroadcastReceiver receiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context ctx, @Nullable Intent intent) {
+                    end();
+                    release(appContext, this, handler);
+                }
+            };
+
+            appContext.registerReceiver(receiver, new IntentFilter(action));
+            handler.postDelayed(() -> {
+                cancel();
+                release(appContext, receiver, handler);
+            }, timeoutMillis);
+        }
+
+        /**
+         * Drops the span without recording it.
+         */
+        public void cancel() {
+            synchronized (this) {
+                if (ended) return;
+                ended = true;
+            }
+            TraceUtil.endAsyncSection(name, id);
+        }
+
+        private void release(Context context, BroadcastReceiver receiver, Handler handler) {
+            handler.removeCallbacksAndMessages(null);
+            try {
+                context.unregisterReceiver(receiver);
+            } catch (IllegalArgumentException ignored) {
+                // Already released by the other path
+            }
+        }
+    }
+
+    /**
+     * Log-scale buckets from 1ms to about a minute, four per power of two.
+     */
+    private static class Histogram {
+        private static final int BUCKETS_PER_OCTAVE = 4;
+        private static final int BUCKET_COUNT = 16 * BUCKETS_PER_OCTAVE;
+
+        private final long[] counts = new long[BUCKET_COUNT];
+        long count;
+        long max;
+
+        void add(long millis) {
+            counts[bucketOf(millis)]++;
+            count++;
+            if (millis > max) max = millis;
+        }
+
+        long percentile(double fraction) {
+            if (count == 0) return 0;
+
+            long rank = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperBoundOf(i), max);
+            }
+            return max;
+        }
+
+        private static int bucketOf(long millis) {
+            if (millis <= 1) return 0;
+            int bucket = (int) Math.ceil(Math.log(millis) / Math.log(2) * BUCKETS_PER_OCTAVE);
+            return Math.min(bucket, BUCKET_COUNT - 1);
+        }
+
+        private static long upperBoundOf(int bucket) {
+            return Math.round(Math.pow(2, (double) bucket / BUCKETS_PER_OCTAVE));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.util;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Builds the shell commands the tiles run through {@link RootUtil}.
+ */
+public class RootCommands {
+    public static final String NAMESPACE_GLOBAL = "global";
+    public static final String NAMESPACE_SECURE = "secure";
+
+    @NonNull
+    public static String keyEvent(int keyCode) {
+        return "input keyevent " + keyCode;
+    }
+
+    @NonNull
+    public static String longPressKeyEvent(int keyCode) {
+        return "input keyevent --longpress " + keyCode;
+    }
+
+    /**
+     * Runs every command in a subshell and exits with 0 if at least one of them
+     * succeeded, for alternative ways of reaching the same state in one batch.
+     */
+    @NonNull
+    public static String anyOf(@NonNull String... commands) {
+        StringBuilder script = new StringBuilder("(failed=1;");
+        for (String command : commands) {
+            script.append(' ').append(command).append(" && failed=0;");
+        }
+        return script.append(" exit $failed)").toString();
+    }
+
+    @NonNull
+    public static String putSetting(@NonNull String namespace, @NonNull String key,
+                                    @NonNull String value) {
+        return "settings put " + namespace + " " + key + " " + value;
+    }
+}
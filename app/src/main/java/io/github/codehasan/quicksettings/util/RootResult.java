@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.util;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Outcome of a batch of commands run on the shared {@link RootShell} session.
+ * <p>
+ * Output is capped at {@link RootShell#MAX_OUTPUT_CHARS} per stream, anything beyond
+ * that is dropped and reported through {@link #isTruncated()}.
+ */
+public class RootResult {
+    private final int exitCode;
+    private final String stdout;
+    private final String stderr;
+    private final boolean truncated;
+    private final long queueTimeNanos;
+    private final long runTimeNanos;
+
+    RootResult(int exitCode, @NonNull String stdout, @NonNull String stderr,
+               boolean truncated, long queueTimeNanos, long runTimeNanos) {
+        this.exitCode = exitCode;
+        this.stdout = stdout;
+        this.stderr = stderr;
+        this.truncated = truncated;
+        this.queueTimeNanos = queueTimeNanos;
+        this.runTimeNanos = runTimeNanos;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public boolean isSuccess() {
+        return exitCode == 0;
+    }
+
+    @NonNull
+    public String getStdout() {
+        return stdout;
+    }
+
+    @NonNull
+    public String getStderr() {
+        return stderr;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Time spent waiting for earlier commands on the session to finish.
+     */
+    public long getQueueTimeMillis() {
+        return queueTimeNanos / 1_000_000;
+    }
+
+    /**
+     * Time between the session becoming free for this batch and its end marker.
+     */
+    public long getRunTimeMillis() {
+        return runTimeNanos / 1_000_000;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "RootResult{exitCode=" + exitCode +
+                ", queued=" + getQueueTimeMillis() + "ms" +
+                ", ran=" + getRunTimeMillis() + "ms" +
+                ", stderr='" + stderr.trim() + "'}";
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.util;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single long-lived {@code su} session shared by every caller in the process.
+ * <p>
+ * Each batch of commands is written to the shell followed by an end marker on both
+ * stdout and stderr, the stdout one carrying the exit status, so several callers can
+ * queue work on the same session and each one gets its own {@link RootResult} back.
+ * The session is started on first use, restarted if the {@code su} process dies and
+ * closed after {@link #IDLE_TIMEOUT_MS} without work.
+ * <p>
+ * Batches are written one at a time and every batch runs under a deadline. A batch
+ * that overruns it or gets cancelled while running takes the session down with it,
+ * the batches queued behind it are replayed on a fresh session.
+ */
+public class RootShell {
+    public static final String TAG = "RootShell";
+    public static final int EXIT_CODE_FAILED = -1;
+    public static final int EXIT_CODE_TIMEOUT = -2;
+    public static final int MAX_OUTPUT_CHARS = 8 * 1024;
+    public static final long DEFAULT_TIMEOUT_MS = 15_000;
+
+    private static final long IDLE_TIMEOUT_MS = 30_000;
+    private static final String TRACE_BATCH = "RootShell.batch";
+    private static final String END_MARKER = "__qs_end_";
+    // Lets JVM benchmarks point the shared session at a stand-in su
+    private static final String SU_PATH_PROPERTY = "quicksettings.su";
+
+    private static RootShell instance;
+
+    private final String[] suCommand;
+    private final Object lock = new Object();
+    // Batches waiting for the session, the one being run is held in running
+    private final ArrayDeque<Command> queue = new ArrayDeque<>();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "RootShell-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @Nullable
+    private Listener listener;
+    private Process process;
+    private DataOutputStream stdin;
+    // Whether the current session has completed at least one command
+    private boolean sessionConfirmed;
+    @Nullable
+    private Command running;
+    private ScheduledFuture<?> idleShutdown;
+    private long lastFinishedNanos;
+    private long nextId;
+
+    /**
+     * A session of its own that runs the given command instead of {@code su}. The app
+     * shares {@link #getInstance()}, this is meant for benchmarks on a build host.
+     */
+    public RootShell(@NonNull String... suCommand) {
+        this.suCommand = suCommand;
+    }
+
+    @NonNull
+    public static synchronized RootShell getInstance() {
+        if (instance == null) {
+            instance = new RootShell(System.getProperty(SU_PATH_PROPERTY, "su"));
+        }
+        return instance;
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        synchronized (lock) {
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Runs the given commands on the shared session and blocks until they finish.
+     *
+     * @return exit status of the last command, or {@link #EXIT_CODE_FAILED} if the
+     * session could not be started or died while running them
+     */
+    public int exec(@NonNull String... commands) {
+        return exec(DEFAULT_TIMEOUT_MS, commands);
+    }
+
+    /**
+     * Same as {@link #exec(String...)} with a custom deadline, which is reported as
+     * {@link #EXIT_CODE_TIMEOUT}.
+     */
+    public int exec(long timeoutMillis, @NonNull String... commands) {
+        TraceUtil.beginSection("RootShell.wait");
+        try {
+            return submit(timeoutMillis, commands).get().getExitCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return EXIT_CODE_FAILED;
+        } catch (ExecutionException e) {
+            return EXIT_CODE_FAILED;
+        } finally {
+            TraceUtil.endSection();
+        }
+    }
+
+    /**
+     * Queues the given commands as one batch with {@link #DEFAULT_TIMEOUT_MS}.
+     *
+     * @see #submit(long, String...)
+     */
+    @NonNull
+    public CompletableFuture<RootResult> submit(@NonNull String... commands) {
+        return submit(DEFAULT_TIMEOUT_MS, commands);
+    }
+
+    /**
+     * Queues the given commands as one batch. The deadline starts once the batch gets
+     * the session. Cancelling the returned future drops the batch if it is still
+     * queued and kills the session if it is already running.
+     * <p>
+     * The returned future completes on an internal thread, so follow-up work that
+     * blocks should use one of the {@code *Async} variants with an executor.
+     */
+    @NonNull
+    public CompletableFuture<RootResult> submit(long timeoutMillis, @NonNull String... commands) {
+        Command command;
+
+        synchronized (lock) {
+            command = new Command(commands, timeoutMillis);
+            // Covers both the time spent queued and running
+            TraceUtil.beginAsyncSection(TRACE_BATCH, (int) command.id);
+            cancelIdleShutdown();
+            queue.addLast(command);
+            if (running == null) runNextLocked();
+        }
+
+        command.future.whenComplete((result, error) -> {
+            TraceUtil.endAsyncSection(TRACE_BATCH, (int) command.id);
+            if (command.future.isCancelled()) onCancelled(command);
+        });
+        return command.future;
+    }
+
+    /**
+     * Number of batches waiting behind the one currently running.
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * How long the current batch has been running, or 0 if the session is idle.
+     */
+    public long getRunningMillis() {
+        synchronized (lock) {
+            if (running == null) return 0;
+            return (System.nanoTime() - running.startedNanos) / 1_000_000;
+        }
+    }
+
+    /**
+     * Closes the session right away. The next submitted command starts a new one.
+     */
+    public void close() {
+        synchronized (lock) {
+            cancelIdleShutdown();
+            destroyLocked();
+        }
+    }
+
+    private void runNextLocked() {
+        while (running == null) {
+            Command command = queue.pollFirst();
+            if (command == null) {
+                scheduleIdleShutdown();
+                return;
+            }
+            if (command.future.isDone()) continue;
+
+            try {
+                ensureStarted();
+                command.start(Math.max(command.submittedNanos, lastFinishedNanos));
+                running = command;
+                stdin.writeBytes(command.toScript());
+                stdin.flush();
+                command.deadline = scheduler.schedule(() -> onTimeout(command),
+                        command.timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write to su session", e);
+                running = null;
+                if (!sessionConfirmed) notifyRootState(false);
+                destroyLocked();
+                command.fail(EXIT_CODE_FAILED);
+                // Without a working su the rest of the queue would fail the same way
+                failQueueLocked();
+                return;
+            }
+        }
+    }
+
+    private void onTimeout(Command command) {
+        synchronized (lock) {
+            if (running != command) return;
+            Log.w(TAG, "Batch exceeded " + command.timeoutMillis + "ms, killing su session: " +
+                    Arrays.toString(command.commands));
+            command.fail(EXIT_CODE_TIMEOUT);
+            killSessionLocked();
+        }
+    }
+
+    private void onCancelled(Command command) {
+        synchronized (lock) {
+            if (running == command) {
+                Log.w(TAG, "Running batch cancelled, killing su session");
+                killSessionLocked();
+            } else {
+                queue.remove(command);
+            }
+        }
+    }
+
+    /**
+     * Kills a session stuck on the running batch. The batches queued behind it have
+     * not started yet, so they are replayed on a new session.
+     */
+    private void killSessionLocked() {
+        running = null;
+        Process stuck = process;
+        process = null;
+        closeSessionLocked(stuck);
+        runNextLocked();
+    }
+
+    private void ensureStarted() throws IOException {
+        if (process != null && isAlive(process)) return;
+        destroyLocked();
+
+        Process su;
+        TraceUtil.beginSection("RootShell.spawn");
+        try {
+            su = Runtime.getRuntime().exec(suCommand);
+        } finally {
+            TraceUtil.endSection();
+        }
+        process = su;
+        stdin = new DataOutputStream(su.getOutputStream());
+        sessionConfirmed = false;
+        lastFinishedNanos = System.nanoTime();
+
+        startReader("RootShell-stdout", su, su.getInputStream(), true);
+        startReader("RootShell-stderr", su, su.getErrorStream(), false);
+    }
+
+    private void startReader(String name, Process owner, InputStream stream, boolean stdout) {
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    onLine(owner, line, stdout);
+                }
+            } catch (IOException ignored) {
+            }
+            if (stdout) onSessionDied(owner);
+        }, name);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void onLine(Process owner, String line, boolean stdout) {
+        synchronized (lock) {
+            if (owner != process) return;
+
+            Command command = running;
+            if (command == null) return;
+
+            if (!command.isMarker(line, stdout)) {
+                command.append(line, stdout);
+                return;
+            }
+
+            if (stdout) {
+                command.exitCode = parseExitCode(line);
+                if (!sessionConfirmed) {
+                    sessionConfirmed = true;
+                    notifyRootState(true);
+                }
+            }
+            if (command.onMarker()) {
+                lastFinishedNanos = System.nanoTime();
+                running = null;
+                runNextLocked();
+            }
+        }
+    }
+
+    private void onSessionDied(Process owner) {
+        synchronized (lock) {
+            if (owner != process) return;
+            Log.w(TAG, "su session ended while running " + (running != null ? 1 : 0) +
+                    " batch(es) with " + queue.size() + " queued");
+            // su exiting before running anything means access was denied
+            boolean denied = !sessionConfirmed;
+            if (denied) notifyRootState(false);
+            destroyLocked();
+
+            if (denied) {
+                failQueueLocked();
+            } else {
+                // e.g. a batch ran 'exit', the rest of the queue gets a new session
+                runNextLocked();
+            }
+        }
+    }
+
+    private void destroyLocked() {
+        if (running != null) {
+            running.fail(EXIT_CODE_FAILED);
+            running = null;
+        }
+        Process old = process;
+        process = null;
+        closeSessionLocked(old);
+    }
+
+    private void failQueueLocked() {
+        Command command;
+        while ((command = queue.pollFirst()) != null) {
+            command.fail(EXIT_CODE_FAILED);
+        }
+    }
+
+    private void closeSessionLocked(@Nullable Process old) {
+        if (stdin != null) {
+            try {
+                stdin.writeBytes("exit\n");
+                stdin.flush();
+                stdin.close();
+            } catch (IOException ignored) {
+            }
+            stdin = null;
+        }
+        if (old != null) {
+            old.destroy();
+            reap(old);
+        }
+    }
+
+    /**
+     * Waits for a destroyed su process off the calling thread so it does not linger
+     * as a zombie.
+     */
+    private static void reap(Process old) {
+        Thread reaper = new Thread(() -> {
+            try {
+                old.waitFor();
+            } catch (InterruptedException ignored) {
+            }
+        }, "RootShell-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    private void notifyRootState(boolean granted) {
+        if (listener != null) {
+            listener.onRootStateChanged(granted);
+        }
+    }
+
+    private void scheduleIdleShutdown() {
+        cancelIdleShutdown();
+        idleShutdown = scheduler.schedule(() -> {
+            synchronized (lock) {
+                if (running == null && queue.isEmpty()) {
+                    destroyLocked();
+                }
+            }
+        }, IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelIdleShutdown() {
+        if (idleShutdown != null) {
+            idleShutdown.cancel(false);
+            idleShutdown = null;
+        }
+    }
+
+    private static int parseExitCode(String markerLine) {
+        int space = markerLine.lastIndexOf(' ');
+        try {
+            return Integer.parseInt(markerLine.substring(space + 1).trim());
+        } catch (NumberFormatException e) {
+            return EXIT_CODE_FAILED;
+        }
+    }
+
+    private static boolean isAlive(Process process) {
+        // Process.isAlive() needs API 26
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException e) {
+            return true;
+        }
+    }
+
+    private class Command {
+        final CompletableFuture<RootResult> future = new CompletableFuture<>();
+        final StringBuilder stdout = new StringBuilder();
+        final StringBuilder stderr = new StringBuilder();
+        final String[] commands;
+        final long id;
+        final long timeoutMillis;
+        final long submittedNanos = System.nanoTime();
+        long startedNanos;
+        int exitCode = EXIT_CODE_FAILED;
+        boolean truncated;
+        // One marker per stream
+        int markersLeft;
+        ScheduledFuture<?> deadline;
+
+        Command(String[] commands, long timeoutMillis) {
+            this.commands = commands;
+            this.id = nextId++;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        void start(long startedNanos) {
+            this.startedNanos = startedNanos;
+            // Output from a previous attempt on a killed session is dropped
+            stdout.setLength(0);
+            stderr.setLength(0);
+            truncated = false;
+            markersLeft = 2;
+        }
+
+        String toScript() {
+            StringBuilder script = new StringBuilder("{\n");
+            for (String cmd : commands) {
+                script.append(cmd).append('\n');
+            }
+            // Commands never see our stdin, so they cannot swallow the next batch
+            script.append("} </dev/null\n");
+            script.append("printf '\\n").append(END_MARKER).append(id).append(" %d\\n' $?\n");
+            script.append("printf '\\n").append(END_MARKER).append(id).append("\\n' >&2\n");
+            return script.toString();
+        }
+
+        void append(String line, boolean toStdout) {
+            StringBuilder buffer = toStdout ? stdout : stderr;
+            int room = MAX_OUTPUT_CHARS - buffer.length();
+            if (room <= line.length()) {
+                if (room > 0) buffer.append(line, 0, room);
+                truncated = true;
+                return;
+            }
+            buffer.append(line).append('\n');
+        }
+
+        boolean isMarker(String line, boolean fromStdout) {
+            String marker = END_MARKER + id;
+            return fromStdout ? line.startsWith(marker + " ") : line.equals(marker);
+        }
+
+        /**
+         * @return {@code true} once the markers of both streams have arrived
+         */
+        boolean onMarker() {
+            if (--markersLeft > 0) return false;
+            complete(exitCode);
+            return true;
+        }
+
+        void fail(int exitCode) {
+            if (startedNanos == 0) startedNanos = System.nanoTime();
+            complete(exitCode);
+        }
+
+        private void complete(int exitCode) {
+            if (deadline != null) deadline.cancel(false);
+            future.complete(new RootResult(exitCode,
+                    dropFramingNewline(stdout),
+                    dropFramingNewline(stderr),
+                    truncated,
+                    startedNanos - submittedNanos,
+                    System.nanoTime() - startedNanos));
+        }
+
+        // The marker is printed after a newline, which adds one to the captured output
+        private String dropFramingNewline(StringBuilder buffer) {
+            int length = buffer.length();
+            if (length > 0 && buffer.charAt(length - 1) == '\n') {
+                return buffer.substring(0, length - 1);
+            }
+            return buffer.toString();
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called with {@code true} once a session runs its first command and with
+         * {@code false} when su cannot be started or exits before running anything.
+         */
+        void onRootStateChanged(boolean granted);
+    }
+}
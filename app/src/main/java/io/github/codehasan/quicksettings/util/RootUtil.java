@@ -15,12 +15,13 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public class RootUtil {
     public static final String TAG = "RootUtil";
+    // Leaves room for the user to answer the superuser prompt
+    private static final long ROOT_REQUEST_TIMEOUT_MS = 30_000;
 
     public static boolean isRootGranted(Context context) {
         return new File(context.getFilesDir(), "root_granted").exists();
@@ -36,37 +37,29 @@ public class RootUtil {
         }
     }
 
-    public static boolean isRootAvailable() {
-        try {
-            Process p = Runtime.getRuntime().exec(new String[]{"su", "-c", "id"});
-            int exitCode = p.waitFor();
-            return exitCode == 0;
-        } catch (Exception e) {
-            return false;
-        }
+    /**
+     * Probes the su session without blocking the caller, the probe may wait on the
+     * superuser prompt for up to {@link #ROOT_REQUEST_TIMEOUT_MS}.
+     */
+    @NonNull
+    public static CompletableFuture<Boolean> checkRootAvailable() {
+        return RootShell.getInstance().submit(ROOT_REQUEST_TIMEOUT_MS, "id")
+                .thenApply(RootResult::isSuccess);
     }
 
-    public static void runRootCommands(@NonNull String... commands) {
-        Process su = null;
-        DataOutputStream os = null;
-        try {
-            su = Runtime.getRuntime().exec("su");
-            os = new DataOutputStream(su.getOutputStream());
-
-            for (String cmd : commands) {
-                os.writeBytes(cmd + "\n");
+    /**
+     * Queues the given commands as one batch and logs a failure. Does not block, chain
+     * on the returned future to act once the commands have finished.
+     */
+    @NonNull
+    public static CompletableFuture<RootResult> runRootCommands(@NonNull String... commands) {
+        return RootShell.getInstance().submit(commands).whenComplete((result, error) -> {
+            if (result == null) return;
+            if (result.getExitCode() == RootShell.EXIT_CODE_FAILED) {
+                Log.e(TAG, "Failed to run su commands");
+            } else if (result.getExitCode() == RootShell.EXIT_CODE_TIMEOUT) {
+                Log.e(TAG, "Timed out running su commands");
             }
-            os.writeBytes("exit\n");
-            os.flush();
-            su.waitFor();
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to run su commands", e);
-        } finally {
-            try {
-                if (os != null) os.close();
-                if (su != null) su.destroy();
-            } catch (IOException ignored) {
-            }
-        }
+        });
     }
 }
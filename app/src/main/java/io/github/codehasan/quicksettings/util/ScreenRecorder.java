@@ -0,0 +1,502 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.util;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.media.MediaScannerConnection;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.SystemClock;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Records the screen with {@code screenrecord} in a su session of its own, as the
+ * shared {@link RootShell} session only runs short batches under a deadline.
+ * <p>
+ * The recording is split into {@link #SEGMENT_SECONDS} long MP4 files that screenrecord
+ * writes to a scratch directory in the app's external files. Stopping interrupts the
+ * running segment, which makes screenrecord write the MP4 index and close the file. If
+ * the app process dies the loop ends with the current segment.
+ * <p>
+ * Each finished segment is published to Movies/ScreenRecords, through a pending
+ * MediaStore entry on API 29+ and by moving it there as root before that, and the
+ * scratch directory is removed once the last one is out. Directories left behind by a
+ * process that was killed while recording are published the next time a recording
+ * starts.
+ */
+public class ScreenRecorder {
+    // screenrecord rejects a --time-limit above 180 seconds before Android 14
+    public static final int SEGMENT_SECONDS = 60;
+
+    private static final String TAG = "ScreenRecorder";
+    private static final String STOP_MARKER = ".stop";
+    private static final String DIRECTORY_PREFIX = "ScreenRecord_";
+    private static final String SEGMENT_PREFIX = "segment_";
+    private static final String SEGMENT_SUFFIX = ".mp4";
+    // A leftover segment untouched for this long is no longer being written
+    private static final long LEFTOVER_QUIET_MS = (SEGMENT_SECONDS + 30) * 1000L;
+    private static final String PID_PREFIX = "pid ";
+    private static final String DONE_PREFIX = "done ";
+    private static final String MIME_TYPE = "video/mp4";
+    private static final String PUBLIC_DIRECTORY = "ScreenRecords";
+
+    private static ScreenRecorder instance;
+
+    private final Context context;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    // Copies can take seconds, so they stay off the shared TaskScheduler pool
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(runnable ->
+            new Thread(runnable, TAG + "-publisher"));
+
+    // Guarded by lock
+    private Status status = Status.IDLE;
+    @Nullable
+    private Process process;
+    @Nullable
+    private File directory;
+    // The running screenrecord, 0 until the shell reports it
+    private int segmentPid;
+    private long startedMillis;
+    // Segments already moved out of the directory
+    private long publishedBytes;
+    // Ended once the first segment is running
+    @Nullable
+    private LatencyTracker.Span startSpan;
+
+    public enum Status {
+        IDLE,
+        RECORDING,
+        // Waiting for screenrecord to finish the current segment and for it to be published
+        STOPPING
+    }
+
+    public interface Listener {
+        /**
+         * Called on an arbitrary thread whenever {@link #getStatus()} changes.
+         */
+        void onRecordingChanged();
+    }
+
+    private ScreenRecorder(Context context) {
+        this.context = context;
+    }
+
+    @NonNull
+    public static synchronized ScreenRecorder getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new ScreenRecorder(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public void addListener(@NonNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @NonNull
+    public Status getStatus() {
+        synchronized (lock) {
+            return status;
+        }
+    }
+
+    /**
+     * @return how long the current recording has been running, 0 while idle
+     */
+    public long getElapsedMillis() {
+        synchronized (lock) {
+            if (status == Status.IDLE) return 0;
+            return SystemClock.elapsedRealtime() - startedMillis;
+        }
+    }
+
+    /**
+     * @return the size of every segment of the current recording so far, 0 while idle
+     */
+    @WorkerThread
+    public long getBytesWritten() {
+        File dir;
+        long bytes;
+        synchronized (lock) {
+            if (status == Status.IDLE) return 0;
+            dir = directory;
+            bytes = publishedBytes;
+        }
+        File[] segments = dir != null ? dir.listFiles() : null;
+        if (segments == null) return bytes;
+
+        for (File segment : segments) {
+            if (segment.getName().startsWith(SEGMENT_PREFIX)) bytes += segment.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Starts a recording into a new scratch directory under the app's external Movies
+     * folder.
+     *
+     * @param span ended once the first segment is running, cancelled if it never does
+     * @return false if a recording is already running or su could not be started
+     */
+    @WorkerThread
+    public boolean start(@Nullable LatencyTracker.Span span) {
+        synchronized (lock) {
+            if (status != Status.IDLE) return false;
+
+            File root = context.getExternalFilesDir(Environment.DIRECTORY_MOVIES);
+            if (root == null) {
+                Log.e(TAG, "External storage is not available");
+                return false;
+            }
+            String name = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+            File dir = new File(root, DIRECTORY_PREFIX + name);
+            if (!dir.mkdirs()) {
+                Log.e(TAG, "Failed to create " + dir);
+                return false;
+            }
+
+            Process su = null;
+            try {
+                su = new ProcessBuilder("su").redirectErrorStream(true).start();
+                try (OutputStream stdin = su.getOutputStream()) {
+                    stdin.write(buildScript(dir).getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to start su", e);
+                if (su != null) su.destroy();
+                dir.delete();
+                return false;
+            }
+
+            process = su;
+            directory = dir;
+            segmentPid = 0;
+            startedMillis = SystemClock.elapsedRealtime();
+            publishedBytes = 0;
+            startSpan = span;
+            status = Status.RECORDING;
+            startReader(su);
+            publisher.execute(() -> recoverLeftovers(root, dir));
+        }
+        notifyListeners();
+        return true;
+    }
+
+    /**
+     * Lets the current segment finish cleanly and starts no new one. The status goes
+     * back to {@link Status#IDLE} once the last segment has been published.
+     */
+    @WorkerThread
+    public void stop() {
+        int pid;
+        File dir;
+        synchronized (lock) {
+            if (status != Status.RECORDING || directory == null) return;
+            status = Status.STOPPING;
+            pid = segmentPid;
+            dir = directory;
+        }
+        notifyListeners();
+
+        String marker = "touch '" + new File(dir, STOP_MARKER).getAbsolutePath() + "'";
+        if (pid != 0) {
+            RootUtil.runRootCommands(marker, interrupt(pid));
+        } else {
+            RootUtil.runRootCommands(marker);
+        }
+    }
+
+    /**
+     * Records segments until the stop marker appears or the app process is gone. Reports
+     * the pid of each segment so it can be interrupted, and the file once it is closed.
+     */
+    private static String buildScript(File dir) {
+        return "cd '" + dir.getAbsolutePath() + "' || exit 1\n" +
+                "i=0\n" +
+                "while [ ! -e " + STOP_MARKER + " ] && kill -0 " + android.os.Process.myPid() +
+                " 2>/dev/null; do\n" +
+                "  i=$((i + 1))\n" +
+                "  f=\"" + SEGMENT_PREFIX + "$(printf %03d $i)" + SEGMENT_SUFFIX + "\"\n" +
+                "  screenrecord --time-limit " + SEGMENT_SECONDS + " \"$f\" &\n" +
+                "  echo \"" + PID_PREFIX + "$!\"\n" +
+                "  wait $!\n" +
+                "  code=$?\n" +
+                "  echo \"" + DONE_PREFIX + "$f\"\n" +
+                "  [ $code -eq 0 ] || break\n" +
+                "done\n" +
+                "exit\n";
+    }
+
+    // screenrecord finishes the MP4 on SIGINT, the same as Ctrl+C in adb shell
+    private static String interrupt(int pid) {
+        return "kill -INT " + pid;
+    }
+
+    private void startReader(Process su) {
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(su.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    onLine(su, line);
+                }
+            } catch (IOException ignored) {
+            }
+            onFinished(su);
+        }, TAG);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void onLine(Process su, String line) {
+        if (line.startsWith(DONE_PREFIX)) {
+            onSegmentDone(su, line.substring(DONE_PREFIX.length()).trim());
+            return;
+        }
+        if (!line.startsWith(PID_PREFIX)) {
+            // screenrecord's own output
+            Log.i(TAG, line);
+            return;
+        }
+
+        int pid;
+        try {
+            pid = Integer.parseInt(line.substring(PID_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        LatencyTracker.Span span;
+        boolean stopping;
+        synchronized (lock) {
+            if (process != su) return;
+            segmentPid = pid;
+            span = startSpan;
+            startSpan = null;
+            // Count from the first frame rather than from the su prompt
+            if (span != null) startedMillis = SystemClock.elapsedRealtime();
+            stopping = status == Status.STOPPING;
+        }
+        if (span != null) span.end();
+        // A segment that started while the stop marker was being written
+        if (stopping) RootUtil.runRootCommands(interrupt(pid));
+    }
+
+    private void onSegmentDone(Process su, String name) {
+        File dir;
+        synchronized (lock) {
+            if (process != su || directory == null) return;
+            dir = directory;
+        }
+        File segment = new File(dir, name);
+        publisher.execute(() -> {
+            long length = publish(dir, segment);
+            synchronized (lock) {
+                publishedBytes += length;
+            }
+        });
+    }
+
+    private void onFinished(Process su) {
+        LatencyTracker.Span span;
+        File dir;
+        boolean changed;
+        synchronized (lock) {
+            if (process != su) return;
+            process = null;
+            segmentPid = 0;
+            dir = directory;
+            changed = status != Status.STOPPING;
+            status = Status.STOPPING;
+            span = startSpan;
+            startSpan = null;
+        }
+        if (span != null) span.cancel();
+        // Reaps the su process, its output has already ended
+        su.destroy();
+        if (changed) notifyListeners();
+        // Queued behind the segments still being published
+        publisher.execute(() -> onPublished(dir));
+    }
+
+    /**
+     * @return the size of the segment if it was published, otherwise 0
+     */
+    @WorkerThread
+    private long publish(File dir, File segment) {
+        long length = segment.length();
+        if (length == 0) {
+            Log.w(TAG, "Skipping empty " + segment);
+            return 0;
+        }
+
+        // e.g. ScreenRecord_20250101-120000_001.mp4
+        String displayName = dir.getName() + "_" +
+                segment.getName().substring(SEGMENT_PREFIX.length());
+        boolean published = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ?
+                insertIntoMediaStore(segment, displayName) :
+                moveToPublicDirectory(segment, displayName);
+        if (!published) {
+            // Left in the scratch directory, which is removed at the end
+            Log.e(TAG, "Failed to publish " + segment);
+            return 0;
+        }
+
+        segment.delete();
+        return length;
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.Q)
+    private boolean insertIntoMediaStore(File segment, String displayName) {
+        ContentResolver resolver = context.getContentResolver();
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.Video.Media.DISPLAY_NAME, displayName);
+        values.put(MediaStore.Video.Media.MIME_TYPE, MIME_TYPE);
+        values.put(MediaStore.Video.Media.RELATIVE_PATH,
+                Environment.DIRECTORY_MOVIES + "/" + PUBLIC_DIRECTORY);
+        // Other apps do not see the entry until the copy is done
+        values.put(MediaStore.Video.Media.IS_PENDING, 1);
+
+        Uri uri = resolver.insert(
+                MediaStore.Video.Media.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY), values);
+        if (uri == null) return false;
+
+        boolean written = false;
+        try (InputStream in = new FileInputStream(segment);
+             OutputStream out = resolver.openOutputStream(uri)) {
+            if (out != null) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                written = true;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write " + uri, e);
+        }
+
+        if (!written) {
+            resolver.delete(uri, null, null);
+            return false;
+        }
+        values.clear();
+        values.put(MediaStore.Video.Media.IS_PENDING, 0);
+        resolver.update(uri, values, null, null);
+        return true;
+    }
+
+    /**
+     * Before scoped storage the app has no write access to shared storage, so root
+     * moves the file and the media scanner picks it up.
+     */
+    private boolean moveToPublicDirectory(File segment, String displayName) {
+        File target = new File(new File(Environment.getExternalStoragePublicDirectory(
+                Environment.DIRECTORY_MOVIES), PUBLIC_DIRECTORY), displayName);
+        RootResult result = RootUtil.runRootCommands(
+                "mkdir -p '" + target.getParent() + "'",
+                "mv '" + segment.getAbsolutePath() + "' '" + target.getAbsolutePath() + "'"
+        ).join();
+        if (!result.isSuccess()) return false;
+
+        MediaScannerConnection.scanFile(context, new String[]{target.getAbsolutePath()},
+                new String[]{MIME_TYPE}, null);
+        return true;
+    }
+
+    /**
+     * Runs after every segment of the recording has been handled.
+     */
+    @WorkerThread
+    private void onPublished(@Nullable File dir) {
+        if (dir != null) removeDirectory(dir);
+
+        synchronized (lock) {
+            if (directory != dir) return;
+            directory = null;
+            status = Status.IDLE;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Publishes the segments of recordings whose process was killed, and removes their
+     * scratch directories.
+     */
+    @WorkerThread
+    private void recoverLeftovers(File root, File current) {
+        File[] dirs = root.listFiles();
+        if (dirs == null) return;
+
+        for (File dir : dirs) {
+            if (dir.equals(current) || !dir.getName().startsWith(DIRECTORY_PREFIX)) continue;
+
+            File[] segments = dir.listFiles();
+            if (segments == null) continue;
+            Arrays.sort(segments);
+            long now = System.currentTimeMillis();
+            boolean writing = false;
+            for (File segment : segments) {
+                // The su loop of a killed process finishes the segment it is on
+                if (now - segment.lastModified() < LEFTOVER_QUIET_MS) writing = true;
+            }
+            if (writing) continue;
+
+            Log.i(TAG, "Recovering " + dir);
+            for (File segment : segments) {
+                if (segment.getName().startsWith(SEGMENT_PREFIX)) publish(dir, segment);
+            }
+            removeDirectory(dir);
+        }
+    }
+
+    // screenrecord and the stop marker were created by root
+    private static void removeDirectory(File dir) {
+        RootUtil.runRootCommands("rm -rf '" + dir.getAbsolutePath() + "'").join();
+    }
+
+    private void notifyListeners() {
+        for (Listener listener : listeners) {
+            listener.onRecordingChanged();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.util;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App-wide background scheduler shared by every tile and activity.
+ * <p>
+ * A small bounded pool runs tasks from two lanes: {@link Lane#INTERACTIVE} for work
+ * started by the user, which always goes ahead of {@link Lane#BACKGROUND} work such as
+ * state refreshes. Owners submit through a {@link Scope}, which runs their tasks one
+ * at a time in submission order and drops whatever is still queued once it is closed.
+ * <p>
+ * Tasks must not park a worker on a root command, the pool is shared by every tile.
+ * Privileged work completes through the futures of {@link RootShell} instead.
+ * <p>
+ * While any worker is busy a watchdog checks the pool every
+ * {@link #STARVATION_THRESHOLD_MS}. When every worker has been stuck on the same task for
+ * longer than that, the stall is counted and the stuck stacks are logged once, so a hung
+ * call shows up in logcat and the diagnostics even if nothing else gets submitted.
+ */
+public class TaskScheduler {
+    public static final String TAG = "TaskScheduler";
+    public static final long STARVATION_THRESHOLD_MS = 2_000;
+
+    private static final int POOL_SIZE = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static TaskScheduler instance;
+
+    private final ThreadPoolExecutor pool;
+    private final LaneStats[] stats = {new LaneStats(), new LaneStats()};
+    private final Map<Thread, Long> busyWorkers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+    private final ScheduledExecutorService watchdog =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "TaskScheduler-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // Guarded by this
+    private ScheduledFuture<?> watchdogCheck;
+    // Whether the current stall has been reported, guarded by this
+    private boolean stallReported;
+
+    public enum Lane {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private TaskScheduler() {
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "TaskScheduler-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }) {
+            @Override
+            protected void beforeExecute(Thread thread, Runnable runnable) {
+                super.beforeExecute(thread, runnable);
+                busyWorkers.put(thread, System.nanoTime());
+                startWatchdog();
+            }
+
+            @Override
+            protected void afterExecute(Runnable runnable, Throwable throwable) {
+                super.afterExecute(runnable, throwable);
+                busyWorkers.remove(Thread.currentThread());
+                onWorkerFreed();
+            }
+        };
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    @NonNull
+    public static synchronized TaskScheduler getInstance() {
+        if (instance == null) {
+            instance = new TaskScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Runs a task on the shared pool without any ordering against other tasks.
+     */
+    public void execute(@NonNull Lane lane, @NonNull Runnable task) {
+        stats[lane.ordinal()].queued.incrementAndGet();
+        pool.execute(new PrioritizedTask(lane, sequence.getAndIncrement(), task));
+    }
+
+    /**
+     * Creates a serial view of the pool for one owner, e.g. a TileService instance.
+     */
+    @NonNull
+    public Scope newScope(@NonNull String name) {
+        return new Scope(name);
+    }
+
+    @NonNull
+    public LaneStats getStats(@NonNull Lane lane) {
+        return stats[lane.ordinal()];
+    }
+
+    /**
+     * @return how many times every worker was stuck at once since the process started
+     */
+    public long getStallCount() {
+        return stalls.get();
+    }
+
+    private synchronized void startWatchdog() {
+        if (watchdogCheck != null) return;
+        watchdogCheck = watchdog.scheduleWithFixedDelay(this::checkStarvation,
+                STARVATION_THRESHOLD_MS, STARVATION_THRESHOLD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void onWorkerFreed() {
+        // A worker got through, whatever was stuck is a new stall next time
+        stallReported = false;
+        if (busyWorkers.isEmpty() && watchdogCheck != null) {
+            watchdogCheck.cancel(false);
+            watchdogCheck = null;
+        }
+    }
+
+    private void checkStarvation() {
+        if (busyWorkers.size() < POOL_SIZE) return;
+
+        long now = System.nanoTime();
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(STARVATION_THRESHOLD_MS);
+        for (Long since : busyWorkers.values()) {
+            if (now - since < thresholdNanos) return;
+        }
+
+        synchronized (this) {
+            if (stallReported) return;
+            stallReported = true;
+        }
+        stalls.incrementAndGet();
+
+        StringBuilder message = new StringBuilder("All workers blocked, ")
+                .append(pool.getQueue().size()).append(" task(s) queued");
+        for (Map.Entry<Thread, Long> entry : busyWorkers.entrySet()) {
+            message.append("\n").append(entry.getKey().getName())
+                    .append(" running for ")
+                    .append(TimeUnit.NANOSECONDS.toMillis(now - entry.getValue())).append("ms");
+            for (StackTraceElement element : entry.getKey().getStackTrace()) {
+                message.append("\n\tat ").append(element);
+            }
+        }
+        Log.w(TAG, message.toString());
+    }
+
+    /**
+     * Counters for one lane, read by the diagnostics without locking.
+     */
+    public static class LaneStats {
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicLong completed = new AtomicLong();
+        volatile long lastWaitNanos;
+        volatile long maxWaitNanos;
+
+        public int getQueueDepth() {
+            return queued.get();
+        }
+
+        public long getCompleted() {
+            return completed.get();
+        }
+
+        public long getLastWaitMillis() {
+            return lastWaitNanos / 1_000_000;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitNanos / 1_000_000;
+        }
+
+        void onStarted(long waitedNanos) {
+            queued.decrementAndGet();
+            lastWaitNanos = waitedNanos;
+            if (waitedNanos > maxWaitNanos) maxWaitNanos = waitedNanos;
+        }
+    }
+
+    private class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        final Lane lane;
+        final long order;
+        final Runnable task;
+        final long queuedNanos = System.nanoTime();
+
+        PrioritizedTask(Lane lane, long order, Runnable task) {
+            this.lane = lane;
+            this.order = order;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            LaneStats laneStats = stats[lane.ordinal()];
+            laneStats.onStarted(System.nanoTime() - queuedNanos);
+            try {
+                task.run();
+            } finally {
+                laneStats.completed.incrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            if (lane != other.lane) return lane.compareTo(other.lane);
+            return Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * Runs its owner's tasks one after another on the shared pool, interactive ones
+     * first. {@link #execute(Runnable)} uses the interactive lane.
+     */
+    public class Scope implements Executor {
+        private final String name;
+        private final ArrayDeque<Runnable> interactive = new ArrayDeque<>();
+        private final ArrayDeque<Runnable> background = new ArrayDeque<>();
+        private final Executor backgroundExecutor = task -> enqueue(Lane.BACKGROUND, task);
+        private boolean active;
+        private boolean closed;
+        private boolean backgroundClosed;
+
+        private Scope(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void execute(@NonNull Runnable task) {
+            enqueue(Lane.INTERACTIVE, task);
+        }
+
+        /**
+         * Executor for work nobody is waiting on, e.g. refreshing tile state.
+         */
+        @NonNull
+        public Executor background() {
+            return backgroundExecutor;
+        }
+
+        /**
+         * Drops every task that has not started yet and rejects new ones. A task that
+         * is already running is left to finish.
+         */
+        public synchronized void close() {
+            closed = true;
+            interactive.clear();
+            background.clear();
+        }
+
+        /**
+         * Drops queued background work and rejects new background work, while
+         * interactive tasks keep running, including ones submitted later. For owners
+         * like a TileService that SystemUI unbinds while the effect of a tap is still
+         * on its way.
+         */
+        public synchronized void closeBackground() {
+            backgroundClosed = true;
+            background.clear();
+        }
+
+        private synchronized void enqueue(Lane lane, Runnable task) {
+            if (closed || (backgroundClosed && lane == Lane.BACKGROUND)) {
+                Log.w(TAG, name + " is closed, dropping task");
+                return;
+            }
+            (lane == Lane.INTERACTIVE ? interactive : background).addLast(task);
+            if (!active) scheduleNext();
+        }
+
+        private synchronized void scheduleNext() {
+            Lane lane = Lane.INTERACTIVE;
+            Runnable next = interactive.pollFirst();
+            if (next == null) {
+                lane = Lane.BACKGROUND;
+                next = background.pollFirst();
+            }
+            if (next == null) {
+                active = false;
+                return;
+            }
+
+            active = true;
+            Runnable task = next;
+            String section = lane == Lane.INTERACTIVE ? "task" : "background";
+            TaskScheduler.this.execute(lane, () -> {
+                TraceUtil.beginSection(name, section);
+                try {
+                    task.run();
+                } finally {
+                    TraceUtil.endSection();
+                    scheduleNext();
+                }
+            });
+        }
+    }
+}
@@ -14,20 +14,105 @@ import android.annotation.SuppressLint;
 import android.app.PendingIntent;
 import android.content.Intent;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.service.quicksettings.TileService;
+import android.util.SparseArray;
+
+import androidx.annotation.MainThread;
 
 import io.github.codehasan.quicksettings.ui.DummyActivity;
 
 public class TileServiceUtil {
+    private static final String SHADE_COLLAPSE = "ShadeCollapse";
+    // Bounds the wait when DummyActivity never reports, well above the usual signal
+    private static final long SHADE_COLLAPSE_FALLBACK_MS = 2_000;
+
+    // Waits for the shade to collapse, by DummyActivity token, main thread only
+    private static final SparseArray<PendingCollapse> pendingCollapses = new SparseArray<>();
+    private static int nextCollapseToken;
+
+    public interface OnCollapsedListener {
+        /**
+         * @param signalled false if the fallback timeout fired first
+         */
+        void onCollapsed(boolean signalled);
+    }
 
     public static void closePanels(TileService service) {
-        startActivity(service, new Intent(service, DummyActivity.class));
+        TraceUtil.beginSection("TileServiceUtil.closePanels");
+        try {
+            startActivity(service, new Intent(service, DummyActivity.class));
+        } finally {
+            TraceUtil.endSection();
+        }
+    }
+
+    /**
+     * Collapses the shade and calls back once it is gone. DummyActivity waits for its
+     * window to gain focus, which the shade holds until it has collapsed, and reports
+     * once it has finished and its window is removed, so it is not in a screenshot or
+     * recording either. If that never happens the listener runs after
+     * {@link #SHADE_COLLAPSE_FALLBACK_MS}.
+     * <p>
+     * The observed wait is recorded with {@link LatencyTracker}.
+     */
+    @MainThread
+    public static void closePanels(TileService service, OnCollapsedListener listener) {
+        int token = ++nextCollapseToken;
+        PendingCollapse pending = new PendingCollapse(listener);
+        pendingCollapses.put(token, pending);
+        pending.handler.postDelayed(() -> completeCollapse(token, false),
+                SHADE_COLLAPSE_FALLBACK_MS);
+
+        TraceUtil.beginAsyncSection(SHADE_COLLAPSE, token);
+        Intent intent = new Intent(service, DummyActivity.class)
+                .putExtra(DummyActivity.EXTRA_COLLAPSE_TOKEN, token)
+                .putExtra(DummyActivity.EXTRA_TIMEOUT, SHADE_COLLAPSE_FALLBACK_MS);
+        TraceUtil.beginSection("TileServiceUtil.closePanels");
+        try {
+            startActivity(service, intent);
+        } finally {
+            TraceUtil.endSection();
+        }
+    }
+
+    /**
+     * Called by DummyActivity once it is destroyed after gaining focus.
+     */
+    @MainThread
+    public static void onShadeCollapsed(int token) {
+        completeCollapse(token, true);
+    }
+
+    private static void completeCollapse(int token, boolean signalled) {
+        PendingCollapse pending = pendingCollapses.get(token);
+        if (pending == null) return;
+        pendingCollapses.remove(token);
+        pending.handler.removeCallbacksAndMessages(null);
+
+        long waitedMillis = SystemClock.elapsedRealtime() - pending.startMillis;
+        TraceUtil.endAsyncSection(SHADE_COLLAPSE, token);
+        LatencyTracker.getInstance().record(
+                SHADE_COLLAPSE + " / " + (signalled ? "activity-gone" : "fallback"),
+                waitedMillis);
+        pending.listener.onCollapsed(signalled);
     }
 
-    @SuppressLint("StartActivityAndCollapseDeprecated")
     public static void startActivity(TileService service, Intent intent) {
         intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
 
+        TraceUtil.beginSection("TileServiceUtil.startActivity");
+        try {
+            startActivityAndCollapse(service, intent);
+        } finally {
+            TraceUtil.endSection();
+        }
+    }
+
+    @SuppressLint("StartActivityAndCollapseDeprecated")
+    private static void startActivityAndCollapse(TileService service, Intent intent) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
             int pendingIntentFlags = PendingIntent.FLAG_ONE_SHOT |
                     PendingIntent.FLAG_UPDATE_CURRENT |
@@ -44,4 +129,14 @@ public class TileServiceUtil {
             service.startActivityAndCollapse(intent);
         }
     }
+
+    private static class PendingCollapse {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        final long startMillis = SystemClock.elapsedRealtime();
+        final OnCollapsedListener listener;
+
+        PendingCollapse(OnCollapsedListener listener) {
+            this.listener = listener;
+        }
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.util;
+
+import android.os.Build;
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+
+import io.github.codehasan.quicksettings.BuildConfig;
+
+/**
+ * Named trace sections for Perfetto/systrace. Only the beta build type sets
+ * {@code BuildConfig.TRACING}, so R8 strips every call from release builds.
+ */
+public class TraceUtil {
+    // Trace.beginSection() rejects longer names
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    public static void beginSection(@NonNull String name) {
+        if (BuildConfig.TRACING) {
+            Trace.beginSection(trim(name));
+        }
+    }
+
+    /**
+     * Same as {@link #beginSection(String)}, the name is only built when tracing.
+     */
+    public static void beginSection(@NonNull String owner, @NonNull String name) {
+        if (BuildConfig.TRACING) {
+            Trace.beginSection(trim(owner + "." + name));
+        }
+    }
+
+    public static void endSection() {
+        if (BuildConfig.TRACING) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Starts a section that may end on another thread. Needs API 29, ignored below.
+     */
+    public static void beginAsyncSection(@NonNull String name, int cookie) {
+        if (BuildConfig.TRACING && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(trim(name), cookie);
+        }
+    }
+
+    public static void beginAsyncSection(@NonNull String owner, @NonNull String name, int cookie) {
+        if (BuildConfig.TRACING && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(trim(owner + "." + name), cookie);
+        }
+    }
+
+    public static void endAsyncSection(@NonNull String name, int cookie) {
+        if (BuildConfig.TRACING && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(trim(name), cookie);
+        }
+    }
+
+    public static void endAsyncSection(@NonNull String owner, @NonNull String name, int cookie) {
+        if (BuildConfig.TRACING && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(trim(owner + "." + name), cookie);
+        }
+    }
+
+    private static String trim(String name) {
+        return name.length() > MAX_SECTION_NAME_LENGTH
+                ? name.substring(0, MAX_SECTION_NAME_LENGTH) : name;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.benchmark;
+
+import static io.github.codehasan.quicksettings.benchmark.Targets.PACKAGE_NAME;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import kotlin.Unit;
+
+/**
+ * Generates the baseline profile shipped with the app. Run it with
+ * {@code ./gradlew :app:generateBaselineProfile} on a device or emulator with API 33+,
+ * or a rooted one with API 28+.
+ */
+@RunWith(JUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public final BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(
+                PACKAGE_NAME,
+                /* maxIterations = */ 15,
+                /* stableIterations = */ 3,
+                /* outputFilePrefix = */ null,
+                /* includeInStartupProfile = */ true,
+                /* strictStability = */ false,
+                /* filterPredicate = */ rule -> rule.contains(PACKAGE_NAME.replace('.', '/')),
+                scope -> {
+                    // Launching MainActivity covers the manifest scan that builds the list
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    Targets.scrollServiceList(scope);
+                    Targets.searchServiceList(scope, "screen");
+
+                    // Bind every tile the way SystemUI does when the panel opens
+                    for (String tile : Targets.STATEFUL_TILES) {
+                        Targets.bindTile(scope, tile);
+                    }
+                    for (String tile : Targets.STATELESS_TILES) {
+                        Targets.bindTile(scope, tile);
+                    }
+                    Targets.collapsePanels(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
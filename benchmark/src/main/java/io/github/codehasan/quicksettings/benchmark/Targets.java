@@ -0,0 +1,108 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.benchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.io.IOException;
+
+/**
+ * The app under test and the interactions shared by the benchmarks and the baseline
+ * profile generator.
+ */
+public class Targets {
+    public static final String PACKAGE_NAME = "io.github.codehasan.quicksettings";
+
+    public static final String[] STATEFUL_TILES = {
+            "BluetoothService",
+            "GhostModeService",
+            "PlayProtectService",
+            "ScreenRecordService",
+    };
+    public static final String[] STATELESS_TILES = {
+            "LockScreenService",
+            "PowerMenuService",
+            "ScreenshotService",
+            "VolumeService",
+    };
+
+    private static final long UI_TIMEOUT_MS = 5_000;
+
+    public static String tileComponent(String tile) {
+        return PACKAGE_NAME + "/.services.tile." + tile;
+    }
+
+    public static void scrollServiceList(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 list = device.wait(Until.findObject(By.res(PACKAGE_NAME, "services")),
+                UI_TIMEOUT_MS);
+        if (list == null) return;
+
+        // Keep the gestures away from the system navigation area
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        list.fling(Direction.DOWN);
+        device.waitForIdle();
+        list.fling(Direction.UP);
+        device.waitForIdle();
+    }
+
+    public static void searchServiceList(MacrobenchmarkScope scope, String query) {
+        UiDevice device = scope.getDevice();
+        UiObject2 search = device.wait(Until.findObject(By.res(PACKAGE_NAME, "action_search")),
+                UI_TIMEOUT_MS);
+        if (search == null) return;
+        search.click();
+
+        UiObject2 field = device.wait(Until.findObject(By.res(PACKAGE_NAME, "search_src_text")),
+                UI_TIMEOUT_MS);
+        if (field == null) return;
+
+        // One character at a time so every keystroke filters the list
+        StringBuilder typed = new StringBuilder();
+        for (char c : query.toCharArray()) {
+            typed.append(c);
+            field.setText(typed.toString());
+            device.waitForIdle();
+        }
+        field.setText("");
+        device.pressBack();
+        device.pressBack();
+        device.waitForIdle();
+    }
+
+    /**
+     * Adds the tile to Quick Settings and opens the panel, which binds every tile that
+     * is visible there.
+     */
+    public static void bindTile(MacrobenchmarkScope scope, String tile) {
+        UiDevice device = scope.getDevice();
+        shell(device, "cmd statusbar add-tile " + tileComponent(tile));
+        shell(device, "cmd statusbar expand-settings");
+        device.waitForIdle();
+    }
+
+    public static void collapsePanels(MacrobenchmarkScope scope) {
+        shell(scope.getDevice(), "cmd statusbar collapse");
+    }
+
+    private static void shell(UiDevice device, String command) {
+        try {
+            device.executeShellCommand(command);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to run: " + command, e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.benchmark;
+
+import static io.github.codehasan.quicksettings.benchmark.Targets.PACKAGE_NAME;
+import static org.junit.Assume.assumeTrue;
+
+import android.os.Build;
+
+import androidx.annotation.OptIn;
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.ExperimentalMetricApi;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Cold bind of each tile, from the service being created to its first tile update.
+ * <p>
+ * Reads the {@code <Tile>.bind} section the app emits in benchmark builds, so it
+ * only measures the app's side and not how fast SystemUI draws the panel.
+ */
+@RunWith(Parameterized.class)
+public class TileBindBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public final MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    private final String tile;
+
+    public TileBindBenchmark(String tile) {
+        this.tile = tile;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> parameters() {
+        List<Object[]> tiles = new ArrayList<>();
+        for (String tile : Targets.STATEFUL_TILES) tiles.add(new Object[]{tile});
+        for (String tile : Targets.STATELESS_TILES) tiles.add(new Object[]{tile});
+        return tiles;
+    }
+
+    @OptIn(markerClass = ExperimentalMetricApi.class)
+    @Test
+    public void coldBind() {
+        // cmd statusbar add-tile
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.R);
+
+        String section = tile + ".bind";
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new TraceSectionMetric(
+                        section, TraceSectionMetric.Mode.First.INSTANCE, section, true)),
+                new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable),
+                null,
+                ITERATIONS,
+                scope -> {
+                    Targets.collapsePanels(scope);
+                    scope.killProcess();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Targets.bindTile(scope, tile);
+                    Targets.collapsePanels(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,48 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Only app sources that need nothing from Android beyond the stubs in src/main
+val appSources by tasks.registering(Sync::class) {
+    from("../app/src/main/java") {
+        include(
+            "io/github/codehasan/quicksettings/ui/model/ServiceItem.java",
+            "io/github/codehasan/quicksettings/ui/model/ServiceSearchIndex.java",
+            "io/github/codehasan/quicksettings/util/NullSafety.java",
+            "io/github/codehasan/quicksettings/util/RootCommands.java",
+            "io/github/codehasan/quicksettings/util/RootResult.java",
+            "io/github/codehasan/quicksettings/util/RootShell.java",
+            "io/github/codehasan/quicksettings/util/RootUtil.java",
+            "io/github/codehasan/quicksettings/util/TraceUtil.java",
+        )
+    }
+    into(layout.buildDirectory.dir("generated/appSources"))
+}
+
+sourceSets {
+    main {
+        java.srcDir(appSources)
+    }
+}
+
+dependencies {
+    implementation(libs.annotation)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "TEXT"
+    // RootShell.getInstance() runs this instead of su
+    jvmArgsAppend.add("-Dquicksettings.su=${file("fake-su").absolutePath}")
+    // Compare against results/baseline.txt, copy the new file over it to update
+    resultsFile = layout.buildDirectory.file("results/jmh/results.txt")
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.microbenchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import io.github.codehasan.quicksettings.util.NullSafety;
+
+/**
+ * {@code isNullOrEmpty(CharSequence)}, which scans for non-blank characters, runs on
+ * every keystroke in the search field and on every bound list row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NullSafetyBenchmark {
+
+    @Param({"null", "empty", "blank", "word", "padded"})
+    public String input;
+
+    private CharSequence value;
+
+    @Setup
+    public void setUp() {
+        switch (input) {
+            case "null":
+                value = null;
+                break;
+            case "empty":
+                value = "";
+                break;
+            case "blank":
+                value = " \t\u2003 ";
+                break;
+            case "word":
+                value = "screenshot";
+                break;
+            case "padded":
+                value = "                                screenshot";
+                break;
+        }
+    }
+
+    @Benchmark
+    public boolean isNullOrEmpty() {
+        return NullSafety.isNullOrEmpty(value);
+    }
+}
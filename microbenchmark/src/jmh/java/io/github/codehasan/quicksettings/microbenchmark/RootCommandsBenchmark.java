@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.microbenchmark;
+
+import static io.github.codehasan.quicksettings.util.RootCommands.NAMESPACE_GLOBAL;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import io.github.codehasan.quicksettings.util.RootCommands;
+
+/**
+ * Building the command strings a root tile tap sends to su.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RootCommandsBenchmark {
+    // KeyEvent.KEYCODE_POWER, not a constant so it is not folded
+    public int keyCode = 26;
+    public String key = "package_verifier_user_consent";
+    public String value = "-1";
+
+    @Benchmark
+    public String keyEvent() {
+        return RootCommands.keyEvent(keyCode);
+    }
+
+    @Benchmark
+    public String longPressKeyEvent() {
+        return RootCommands.longPressKeyEvent(keyCode);
+    }
+
+    @Benchmark
+    public String putSetting() {
+        return RootCommands.putSetting(NAMESPACE_GLOBAL, key, value);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.microbenchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.github.codehasan.quicksettings.util.RootResult;
+import io.github.codehasan.quicksettings.util.RootShell;
+import io.github.codehasan.quicksettings.util.RootUtil;
+
+/**
+ * Throughput and latency of RootUtil against the stand-in su from {@code fake-su}.
+ * <p>
+ * Throughput is reported per command, sample time gives the p99 of one call. The
+ * numbers measure the session plumbing, not how long su takes on a phone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RootShellBenchmark {
+    private static final int BATCH_SIZE = 10;
+    private static final String[] BATCH = new String[BATCH_SIZE];
+
+    static {
+        for (int i = 0; i < BATCH_SIZE; i++) BATCH[i] = "true";
+    }
+
+    private RootShell shell;
+
+    @Setup
+    public void setUp() {
+        FakeSu.path();
+        shell = RootShell.getInstance();
+        // Start the session before measuring
+        if (!RootUtil.checkRootAvailable().join()) {
+            throw new IllegalStateException("Stand-in su is not usable");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        shell.close();
+    }
+
+    /**
+     * One command on the long-lived session.
+     */
+    @Benchmark
+    public void oneCommand() {
+        RootUtil.runRootCommands("true").join();
+    }
+
+    /**
+     * One command on a fresh session, how every root call worked before the session
+     * was shared.
+     */
+    @Benchmark
+    public void oneCommandNewSession() {
+        shell.close();
+        RootUtil.runRootCommands("true").join();
+    }
+
+    /**
+     * Ten commands written as one batch.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batch() {
+        RootUtil.runRootCommands(BATCH).join();
+    }
+
+    /**
+     * Ten commands queued as separate batches, each one reporting its own result.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void eachCommand() {
+        List<CompletableFuture<RootResult>> results = new ArrayList<>(BATCH_SIZE);
+        for (String command : BATCH) {
+            results.add(shell.submit(command));
+        }
+        for (CompletableFuture<RootResult> result : results) {
+            result.join();
+        }
+    }
+}
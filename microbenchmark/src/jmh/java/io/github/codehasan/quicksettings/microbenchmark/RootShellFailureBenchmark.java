@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.microbenchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+import io.github.codehasan.quicksettings.util.RootShell;
+
+/**
+ * How long RootShell takes to get back to a working session when su misbehaves. Each
+ * benchmark fails if the shell does not report the expected exit code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RootShellFailureBenchmark {
+    private static final long HANG_TIMEOUT_MS = 50;
+
+    private RootShell shell;
+    private RootShell deniedShell;
+
+    @Setup
+    public void setUp() {
+        deniedShell = new RootShell(FakeSu.path(), "--deny");
+        shell = RootShell.getInstance();
+    }
+
+    @TearDown
+    public void tearDown() {
+        shell.close();
+        deniedShell.close();
+    }
+
+    /**
+     * A command that hangs past its deadline, then the next command on a new session.
+     */
+    @Benchmark
+    public int hangThenRecover() {
+        expect(RootShell.EXIT_CODE_TIMEOUT, shell.exec(HANG_TIMEOUT_MS, "sleep 1"));
+        return expect(0, shell.exec("true"));
+    }
+
+    /**
+     * su exiting in the middle of a batch, then the next command on a new session.
+     */
+    @Benchmark
+    public int exitEarlyThenRecover() {
+        expect(RootShell.EXIT_CODE_FAILED, shell.exec("exit 3"));
+        return expect(0, shell.exec("true"));
+    }
+
+    /**
+     * su refusing the request, which should fail fast instead of waiting for the
+     * deadline.
+     */
+    @Benchmark
+    public int denied() {
+        return expect(RootShell.EXIT_CODE_FAILED, deniedShell.exec("id"));
+    }
+
+    private static int expect(int expected, int actual) {
+        if (actual != expected) {
+            throw new IllegalStateException("Expected exit code " + expected + ", got " + actual);
+        }
+        return actual;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.microbenchmark;
+
+import android.content.ComponentName;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.github.codehasan.quicksettings.ui.model.ServiceItem;
+import io.github.codehasan.quicksettings.ui.model.ServiceSearchIndex;
+
+/**
+ * The search of the tile list, queried on a worker thread per keystroke and built once
+ * per catalog load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ServiceSearchBenchmark {
+    // Titles and descriptions of the tiles the app ships
+    private static final String[][] TILES = {
+            {"Play Protect", "Toggle play protect on/off"},
+            {"Volume Controls", "Easy access to sound configuration"},
+            {"Ghost Mode", "Disable all radio channels"},
+            {"Bluetooth", "Toggle bluetooth on/off"},
+            {"Lock Screen", "Put device to sleep"},
+            {"Screenshot", "Take a screenshot"},
+            {"Power Menu", "Easy access to restart, power off"},
+    };
+
+    /**
+     * 7 is the current list, the larger sizes show how the search scales.
+     */
+    @Param({"7", "70", "700"})
+    public int size;
+
+    private List<ServiceItem> items;
+    private ServiceSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String[] tile = TILES[i % TILES.length];
+            ServiceItem item = new ServiceItem();
+            item.component = new ComponentName("io.github.codehasan.quicksettings", "Tile" + i);
+            // Numbered copies grow the vocabulary along with the list
+            item.title = i < TILES.length ? tile[0] : tile[0] + " " + i;
+            item.description = tile[1];
+            items.add(item);
+        }
+        index = ServiceSearchIndex.build(items);
+    }
+
+    @Benchmark
+    public List<ServiceItem> query(Query query) {
+        return index.query(query.text, () -> false);
+    }
+
+    @Benchmark
+    public ServiceSearchIndex build() {
+        return ServiceSearchIndex.build(items);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Query {
+        // Blank, prefix, substring, two words, typos and no match
+        @Param({"", "s", "screen", "creen", "POWER OFF", "blutooth", "scren", "nomatch"})
+        public String text;
+    }
+}
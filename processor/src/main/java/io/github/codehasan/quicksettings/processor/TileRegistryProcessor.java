@@ -0,0 +1,281 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Collects every {@code @TileSpec} class, together with its {@code @MinSdk}, into a
+ * generated {@code TileRegistry} of parallel arrays, so the app needs no reflection to
+ * read tile metadata.
+ * <p>
+ * The processor is aggregating for Gradle, which on an incremental build passes
+ * unchanged tiles in as class files, so both annotations have CLASS retention.
+ * <p>
+ * Every concrete {@code TileService} in the sources must carry {@code @TileSpec}, and no
+ * two tiles may share a simple name, which keys their traces and latency stats.
+ */
+@SupportedAnnotationTypes({
+        TileRegistryProcessor.TILE_SPEC,
+        TileRegistryProcessor.MIN_SDK
+})
+public class TileRegistryProcessor extends AbstractProcessor {
+    static final String TILE_SPEC = "io.github.codehasan.quicksettings.annotations.TileSpec";
+    static final String MIN_SDK = "io.github.codehasan.quicksettings.annotations.MinSdk";
+    static final String TILE_SERVICE = "android.service.quicksettings.TileService";
+
+    private static final String REGISTRY_PACKAGE = "io.github.codehasan.quicksettings.state";
+    private static final String REGISTRY_NAME = "TileRegistry";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+    private boolean generated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        checkTilesAnnotated(roundEnv);
+        if (generated || annotations.isEmpty()) return false;
+
+        TypeElement tileSpec = elements.getTypeElement(TILE_SPEC);
+        TypeElement minSdk = elements.getTypeElement(MIN_SDK);
+        if (tileSpec == null) return false;
+
+        if (minSdk != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(minSdk)) {
+                if (findAnnotation(element, TILE_SPEC) == null) {
+                    messager.printMessage(Diagnostic.Kind.ERROR,
+                            "@MinSdk is only read from classes annotated with @TileSpec", element);
+                }
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        Map<String, Entry> bySimpleName = new HashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(tileSpec)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "@TileSpec must be placed on a tile service class", element);
+                continue;
+            }
+
+            Entry entry = readEntry((TypeElement) element);
+            if (entry == null) continue;
+
+            Entry clash = bySimpleName.put(element.getSimpleName().toString(), entry);
+            if (clash != null) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "Duplicate tile name, also used by " + clash.className, element);
+                continue;
+            }
+            entries.add(entry);
+        }
+        if (entries.isEmpty()) return false;
+
+        entries.sort(Comparator.comparing(entry -> entry.className));
+        try {
+            writeRegistry(entries);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + REGISTRY_NAME + ": " + e.getMessage());
+        }
+        generated = true;
+        return true;
+    }
+
+    /**
+     * Reports every concrete tile service of this round that has no {@code @TileSpec}, as
+     * the registry would silently miss it.
+     */
+    private void checkTilesAnnotated(RoundEnvironment roundEnv) {
+        TypeElement tileService = elements.getTypeElement(TILE_SERVICE);
+        if (tileService == null) return;
+
+        for (Element element : roundEnv.getRootElements()) {
+            if (element.getKind() != ElementKind.CLASS
+                    || element.getModifiers().contains(Modifier.ABSTRACT)
+                    || element.equals(tileService)
+                    || !types.isSubtype(element.asType(), tileService.asType())) {
+                continue;
+            }
+            if (findAnnotation(element, TILE_SPEC) == null) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "Tile service is missing @TileSpec", element);
+            }
+        }
+    }
+
+    private Entry readEntry(TypeElement type) {
+        AnnotationMirror spec = findAnnotation(type, TILE_SPEC);
+        AnnotationMirror minSdk = findAnnotation(type, MIN_SDK);
+
+        Entry entry = new Entry();
+        entry.element = type;
+        entry.className = elements.getBinaryName(type).toString();
+        entry.settingsAction = emptyToNull((String) valueOf(spec, "settingsAction"));
+        entry.settingsComponent = emptyToNull((String) valueOf(spec, "settingsComponent"));
+        entry.minSdk = minSdk == null ? 0 : (Integer) valueOf(minSdk, "value");
+
+        if (entry.settingsComponent != null && entry.settingsComponent.indexOf('/') <= 0) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "settingsComponent must be a flattened component, package/class", type);
+            return null;
+        }
+        return entry;
+    }
+
+    private void writeRegistry(List<Entry> entries) throws IOException {
+        Element[] originating = new Element[entries.size()];
+        for (int i = 0; i < originating.length; i++) {
+            originating[i] = entries.get(i).element;
+        }
+
+        JavaFileObject file = filer.createSourceFile(
+                REGISTRY_PACKAGE + "." + REGISTRY_NAME, originating);
+        try (Writer out = file.openWriter()) {
+            out.write("package " + REGISTRY_PACKAGE + ";\n\n");
+            out.write("import androidx.annotation.NonNull;\n");
+            out.write("import androidx.annotation.Nullable;\n\n");
+            out.write("import java.util.Arrays;\n\n");
+            out.write("/**\n");
+            out.write(" * Metadata of every tile, generated from @TileSpec and @MinSdk by "
+                    + getClass().getSimpleName() + ".\n");
+            out.write(" */\n");
+            out.write("public final class " + REGISTRY_NAME + " {\n");
+            out.write("    public static final int TILE_COUNT = " + entries.size() + ";\n\n");
+
+            out.write("    // Sorted, so indexOf can binary search\n");
+            writeArray(out, "String", "CLASS_NAMES", entries, entry -> literal(entry.className));
+            writeArray(out, "int", "MIN_SDK", entries, entry -> String.valueOf(entry.minSdk));
+            writeArray(out, "String", "SETTINGS_ACTIONS", entries,
+                    entry -> literal(entry.settingsAction));
+            writeArray(out, "String", "SETTINGS_COMPONENTS", entries,
+                    entry -> literal(entry.settingsComponent));
+
+            out.write("    private " + REGISTRY_NAME + "() {\n    }\n\n");
+
+            out.write("    /**\n");
+            out.write("     * @return the index of the tile for the other lookups, or -1 if the class\n");
+            out.write("     * is not a tile\n");
+            out.write("     */\n");
+            out.write("    public static int indexOf(@Nullable String className) {\n");
+            out.write("        if (className == null) return -1;\n");
+            out.write("        int index = Arrays.binarySearch(CLASS_NAMES, className);\n");
+            out.write("        return index >= 0 ? index : -1;\n");
+            out.write("    }\n");
+
+            writeGetter(out, "@NonNull\n    public static String", "className", "CLASS_NAMES");
+            writeGetter(out, "public static int", "minSdk", "MIN_SDK");
+            writeGetter(out, "@Nullable\n    public static String", "settingsAction",
+                    "SETTINGS_ACTIONS");
+            writeGetter(out, "@Nullable\n    public static String", "settingsComponent",
+                    "SETTINGS_COMPONENTS");
+            out.write("}\n");
+        }
+    }
+
+    private static void writeArray(Writer out, String type, String name, List<Entry> entries,
+                                   Formatter formatter) throws IOException {
+        out.write("    private static final " + type + "[] " + name + " = {\n");
+        for (Entry entry : entries) {
+            out.write("            " + formatter.format(entry) + ",\n");
+        }
+        out.write("    };\n\n");
+    }
+
+    private static void writeGetter(Writer out, String signature, String name, String array)
+            throws IOException {
+        out.write("\n    " + signature + " " + name + "(int index) {\n");
+        out.write("        return " + array + "[index];\n");
+        out.write("    }\n");
+    }
+
+    private String literal(String value) {
+        return value == null ? "null" : elements.getConstantExpression(value);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(name)) return mirror;
+        }
+        return null;
+    }
+
+    private Object valueOf(AnnotationMirror mirror, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                elements.getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value :
+                values.entrySet()) {
+            if (value.getKey().getSimpleName().contentEquals(name)) {
+                return value.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private interface Formatter {
+        String format(Entry entry);
+    }
+
+    private static class Entry {
+        TypeElement element;
+        String className;
+        String settingsAction;
+        String settingsComponent;
+        int minSdk;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2025 Ratul Hasan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.codehasan.quicksettings.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+public class TileRegistryProcessorTest {
+    private static final String REGISTRY = "io.github.codehasan.quicksettings.state.TileRegistry";
+    private static final String CLASS_OUTPUT = "/CLASS_OUTPUT/";
+
+    // The app and Android sources the processor and the generated registry refer to
+    private static final JavaFileObject[] SUPPORT = {
+            JavaFileObjects.forSourceLines(TileRegistryProcessor.TILE_SPEC,
+                    "package io.github.codehasan.quicksettings.annotations;",
+                    "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.CLASS)",
+                    "public @interface TileSpec {",
+                    "    String settingsAction() default \"\";",
+                    "    String settingsComponent() default \"\";",
+                    "}"),
+            JavaFileObjects.forSourceLines(TileRegistryProcessor.MIN_SDK,
+                    "package io.github.codehasan.quicksettings.annotations;",
+                    "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.CLASS)",
+                    "public @interface MinSdk {",
+                    "    int value();",
+                    "}"),
+            JavaFileObjects.forSourceLines(TileRegistryProcessor.TILE_SERVICE,
+                    "package android.service.quicksettings;",
+                    "public class TileService {",
+                    "}"),
+            JavaFileObjects.forSourceLines("androidx.annotation.NonNull",
+                    "package androidx.annotation;",
+                    "public @interface NonNull {",
+                    "}"),
+            JavaFileObjects.forSourceLines("androidx.annotation.Nullable",
+                    "package androidx.annotation;",
+                    "public @interface Nullable {",
+                    "}")
+    };
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void sortsTilesByClassName() throws IOException {
+        Compilation compilation = compile(
+                tile("tiles.ZetaService", "@TileSpec @MinSdk(30)"),
+                tile("tiles.AlphaService",
+                        "@TileSpec(settingsAction = \"android.settings.SOUND_SETTINGS\")"),
+                tile("tiles.MidService", "@TileSpec(settingsComponent = \"com.example/.Settings\")"));
+
+        assertThat(compilation).succeededWithoutWarnings();
+        String registry = compilation.generatedSourceFile(REGISTRY).get()
+                .getCharContent(false).toString();
+        assertThat(registry).contains("TILE_COUNT = 3;");
+        assertThat(registry).contains(
+                "CLASS_NAMES = {\n" +
+                        "            \"tiles.AlphaService\",\n" +
+                        "            \"tiles.MidService\",\n" +
+                        "            \"tiles.ZetaService\",\n");
+        // The other arrays follow the same order
+        assertThat(registry).contains("MIN_SDK = {\n" +
+                "            0,\n" +
+                "            0,\n" +
+                "            30,\n");
+        assertThat(registry).contains("SETTINGS_ACTIONS = {\n" +
+                "            \"android.settings.SOUND_SETTINGS\",\n" +
+                "            null,\n" +
+                "            null,\n");
+        assertThat(registry).contains("SETTINGS_COMPONENTS = {\n" +
+                "            null,\n" +
+                "            \"com.example/.Settings\",\n" +
+                "            null,\n");
+    }
+
+    @Test
+    public void ignoresAbstractTileServices() {
+        JavaFileObject base = JavaFileObjects.forSourceLines("tiles.BaseService",
+                "package tiles;",
+                "public abstract class BaseService extends android.service.quicksettings.TileService {",
+                "}");
+
+        Compilation compilation = compile(base, tile("tiles.AlphaService", "@TileSpec"));
+
+        assertThat(compilation).succeededWithoutWarnings();
+    }
+
+    @Test
+    public void rejectsTileWithoutTileSpec() {
+        JavaFileObject missing = tile("tiles.MissingService", "");
+
+        Compilation compilation = compile(tile("tiles.AlphaService", "@TileSpec"), missing);
+
+        assertThat(compilation).failed();
+        assertThat(compilation).hadErrorCount(1);
+        assertThat(compilation).hadErrorContaining("Tile service is missing @TileSpec")
+                .inFile(missing);
+    }
+
+    @Test
+    public void rejectsDuplicateTileNames() {
+        Compilation compilation = compile(
+                tile("tiles.VolumeService", "@TileSpec"),
+                tile("other.VolumeService", "@TileSpec"));
+
+        assertThat(compilation).failed();
+        assertThat(compilation).hadErrorCount(1);
+        assertThat(compilation).hadErrorContaining("Duplicate tile name, also used by");
+    }
+
+    @Test
+    public void rejectsMalformedSettingsComponent() {
+        JavaFileObject malformed = tile("tiles.AlphaService",
+                "@TileSpec(settingsComponent = \"com.example.Settings\")");
+
+        Compilation compilation = compile(malformed);
+
+        assertThat(compilation).failed();
+        assertThat(compilation).hadErrorContaining("settingsComponent must be a flattened component")
+                .inFile(malformed);
+    }
+
+    /**
+     * An incremental build only recompiles the changed tile and hands the unchanged ones
+     * to the processor as class files.
+     */
+    @Test
+    public void keepsTilesReadFromClassFiles() throws IOException {
+        Compilation previous = compile(tile("tiles.AlphaService", "@TileSpec @MinSdk(30)"));
+        assertThat(previous).succeededWithoutWarnings();
+        File classes = temporaryFolder.newFolder("classes");
+        for (JavaFileObject file : previous.generatedFiles()) {
+            // The registry is generated again below
+            if (file.getKind() != JavaFileObject.Kind.CLASS
+                    || file.getName().contains("TileRegistry")) {
+                continue;
+            }
+            Path target = classes.toPath().resolve(
+                    file.getName().substring(CLASS_OUTPUT.length()));
+            Files.createDirectories(target.getParent());
+            try (InputStream in = file.openInputStream()) {
+                Files.copy(in, target);
+            }
+        }
+
+        File generated = temporaryFolder.newFolder("generated");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                Arrays.asList(
+                        "-classpath", classes.getPath(),
+                        "-s", generated.getPath(),
+                        "-d", temporaryFolder.newFolder("out").getPath()),
+                Collections.singletonList("tiles.AlphaService"),
+                Collections.singletonList(tile("tiles.ZetaService", "@TileSpec")));
+        task.setProcessors(Collections.singletonList(new TileRegistryProcessor()));
+
+        assertThat(task.call()).isTrue();
+        String registry = new String(Files.readAllBytes(generated.toPath()
+                .resolve(REGISTRY.replace('.', '/') + ".java")), UTF_8);
+        assertThat(registry).contains("TILE_COUNT = 2;");
+        assertThat(registry).contains(
+                "CLASS_NAMES = {\n" +
+                        "            \"tiles.AlphaService\",\n" +
+                        "            \"tiles.ZetaService\",\n");
+        assertThat(registry).contains("MIN_SDK = {\n" +
+                "            30,\n" +
+                "            0,\n");
+    }
+
+    private static Compilation compile(JavaFileObject... tiles) {
+        List<JavaFileObject> sources = new ArrayList<>(Arrays.asList(SUPPORT));
+        sources.addAll(Arrays.asList(tiles));
+        return javac().withProcessors(new TileRegistryProcessor()).compile(sources);
+    }
+
+    private static JavaFileObject tile(String className, String annotations) {
+        int dot = className.lastIndexOf('.');
+        return JavaFileObjects.forSourceLines(className,
+                "package " + className.substring(0, dot) + ";",
+                "import io.github.codehasan.quicksettings.annotations.MinSdk;",
+                "import io.github.codehasan.quicksettings.annotations.TileSpec;",
+                annotations,
+                "public class " + className.substring(dot + 1) +
+                        " extends android.service.quicksettings.TileService {",
+                "}");
+    }
+}
@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Quick Settings"
 include(":app")
- 
\ No newline at end of file
+include(":benchmark")
+include(":microbenchmark")
+include(":processor")
\ No newline at end of file